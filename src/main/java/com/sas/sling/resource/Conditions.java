@@ -16,6 +16,8 @@ package com.sas.sling.resource;
 import java.util.Objects;
 import java.util.function.Predicate;
 
+import com.sas.sling.resource.parser.predicates.LogicalPredicate;
+
 /**
  * A collection of terms to assist in building a fluent api. These terms may not
  * have functionality other than providing syntax sugar over existing features,
@@ -54,14 +56,14 @@ public class Conditions {
 	 *            always evaluated
 	 * @param secondPredicate
 	 *            evaluated if firstPredicate returns false
-	 * @return a new predicate which wraps the or method on the firstPredicate
+	 * @return a new predicate which evaluates both predicates in a single loop
 	 */
 	public static <T> Predicate<T> either(
 			final Predicate<T> firstPredicate,
 			final Predicate<T> secondPredicate) {
 		Objects.requireNonNull(firstPredicate, "predicate may not be null");
 		Objects.requireNonNull(secondPredicate, "predicate may not be null");
-		return firstPredicate.or(secondPredicate);
+		return LogicalPredicate.anyOf(firstPredicate, secondPredicate);
 	}
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Visits the resources which a {@link PropertyIndex} found to be candidates of
+ * a statement, in the order of the traversal, instead of the whole subtree.
+ *
+ * A candidate is treated like a resource reached by the traversal. It is only
+ * tested against the condition when the traversal control accepts it and every
+ * resource between it and the start resource, and candidates which no longer
+ * exist are skipped. The decision for each of those resources is kept, so that
+ * candidates beneath the same resource do not test it again.
+ *
+ */
+final class IndexSpliterator implements Spliterator<Resource> {
+
+	private final Resource start;
+
+	// paths of the candidates, in the order of the traversal
+	private final String[] paths;
+
+	private int next;
+
+	private final int end;
+
+	// null if every child resource is descended into
+	private final Predicate<Resource> traversalControl;
+
+	// whether the traversal reaches a resource, by path
+	private final Map<String, Boolean> reachable = new HashMap<>();
+
+	private final Predicate<Resource> condition;
+
+	private final int characteristics;
+
+	// null unless statistics are collected
+	private final TraversalStats stats;
+
+	/**
+	 * @param start
+	 *            resource that the traversal starts from, this resource is not
+	 *            subject to the traversal control
+	 * @param paths
+	 *            paths of the candidates beneath the start resource, in the
+	 *            order of the traversal
+	 * @param traversalControl
+	 *            decides whether a child resource is descended into, null to
+	 *            descend into every resource
+	 * @param condition
+	 *            decides whether a candidate is part of the result
+	 * @param ordered
+	 *            whether the encounter order must be kept when splitting
+	 * @param stats
+	 *            statistics of the traversal, or null
+	 */
+	IndexSpliterator(Resource start, String[] paths, Predicate<Resource> traversalControl,
+			Predicate<Resource> condition, boolean ordered, TraversalStats stats) {
+		this(start, paths, 0, paths.length, traversalControl, condition,
+				NONNULL | IMMUTABLE | (ordered ? ORDERED : 0), stats);
+	}
+
+	private IndexSpliterator(Resource start, String[] paths, int next, int end,
+			Predicate<Resource> traversalControl, Predicate<Resource> condition, int characteristics,
+			TraversalStats stats) {
+		this.start = start;
+		this.paths = paths;
+		this.next = next;
+		this.end = end;
+		this.traversalControl = traversalControl;
+		this.condition = condition;
+		this.characteristics = characteristics;
+		this.stats = stats;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Resource> action) {
+		while (next < end) {
+			Resource candidate = resolve(paths[next++]);
+			if (candidate != null && (candidate == start || traversalControl == null || descends(candidate))
+					&& matches(candidate)) {
+				action.accept(candidate);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Spliterator<Resource> trySplit() {
+		if (end - next < 2) {
+			return null;
+		}
+		// the prefix of the encounter order is handed away
+		int middle = (next + end) >>> 1;
+		IndexSpliterator prefix = new IndexSpliterator(start, paths, next, middle, traversalControl, condition,
+				characteristics, stats);
+		next = middle;
+		return prefix;
+	}
+
+	private Resource resolve(String path) {
+		String startPath = start.getPath();
+		if (path.equals(startPath)) {
+			return start;
+		}
+		return start.getChild(path.substring(startPath.endsWith("/") ? startPath.length() : startPath.length() + 1));
+	}
+
+	/*
+	 * whether the traversal reaches the resource, which it does when the
+	 * traversal control accepts the resource and each of its ancestors beneath
+	 * the start resource
+	 */
+	private boolean isReachable(Resource resource) {
+		String path = resource.getPath();
+		if (path.equals(start.getPath())) {
+			return true;
+		}
+		Boolean known = reachable.get(path);
+		if (known == null) {
+			Resource parent = resource.getParent();
+			known = traversalControl.test(resource) && (parent == null || isReachable(parent));
+			reachable.put(path, known);
+		}
+		return known;
+	}
+
+	private boolean matches(Resource resource) {
+		return stats == null ? condition.test(resource) : stats.testCondition(condition, resource);
+	}
+
+	private boolean descends(Resource resource) {
+		return stats == null ? isReachable(resource) : stats.testTraversalControl(this::isReachable, resource);
+	}
+
+	@Override
+	public long estimateSize() {
+		return end - next;
+	}
+
+	@Override
+	public int characteristics() {
+		return characteristics;
+	}
+
+}
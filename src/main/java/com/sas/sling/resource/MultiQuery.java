@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+import com.sas.sling.resource.parser.CompiledQuery;
+import com.sas.sling.resource.parser.EvaluationContext;
+import com.sas.sling.resource.parser.Projection;
+import com.sas.sling.resource.parser.predicates.LogicalPredicate;
+
+/**
+ * Evaluates several named conditions against each resource of a single
+ * traversal and passes the matches to the callback of the condition. The
+ * compiled statements among them share one {@link EvaluationContext} per
+ * resource, with the properties of all of their projections, so a value used
+ * by more than one of them is only read once. Other conditions are tested
+ * against the resource itself.
+ *
+ * Skipping and limiting applies to the matches of each condition separately.
+ * A resource matches this predicate when any of the conditions accepted it.
+ *
+ * Instances are not thread safe.
+ */
+final class MultiQuery implements Predicate<Resource> {
+
+	private final Predicate<Resource>[] conditions;
+
+	// whether a condition is tested against the shared context
+	private final boolean[] compiled;
+
+	private final Consumer<Resource>[] callbacks;
+
+	private final long[] matched;
+
+	private final long startOfRange;
+
+	private final long limit;
+
+	private final Projection projection;
+
+	private int active;
+
+	@SuppressWarnings("unchecked")
+	MultiQuery(Map<String, ? extends Predicate<Resource>> conditions,
+			Map<String, ? extends Consumer<Resource>> callbacks, long startOfRange, long limit) {
+		int size = conditions.size();
+		this.conditions = new Predicate[size];
+		this.compiled = new boolean[size];
+		this.callbacks = new Consumer[size];
+		this.matched = new long[size];
+		this.startOfRange = startOfRange;
+		this.limit = limit;
+		List<Projection> projections = new ArrayList<>();
+		int i = 0;
+		for (Map.Entry<String, ? extends Predicate<Resource>> entry : conditions.entrySet()) {
+			String name = entry.getKey();
+			this.conditions[i] = Objects.requireNonNull(entry.getValue(), "condition may not be null");
+			this.callbacks[i] = callbacks.get(name);
+			if (this.callbacks[i] == null) {
+				throw new IllegalArgumentException("no callback for " + name);
+			}
+			if (entry.getValue() instanceof CompiledQuery) {
+				compiled[i] = true;
+				((CompiledQuery) entry.getValue()).getProjection().ifPresent(projections::add);
+			}
+			++i;
+		}
+		this.projection = projections.isEmpty() ? null : Projection.union(projections);
+		this.active = size;
+	}
+
+	/**
+	 * Prunes a subtree only when every condition rejects it
+	 * 
+	 * @return predicate to prune the traversal, empty if every subtree may
+	 *         contain matches
+	 */
+	@SuppressWarnings("unchecked")
+	Optional<Predicate<Resource>> getTraversalControl() {
+		if (conditions.length == 0) {
+			return Optional.empty();
+		}
+		Predicate<Resource>[] controls = new Predicate[conditions.length];
+		for (int i = 0; i < conditions.length; ++i) {
+			if (!(conditions[i] instanceof CompiledQuery)) {
+				return Optional.empty();
+			}
+			Optional<Predicate<Resource>> control = ((CompiledQuery) conditions[i]).getTraversalControl();
+			if (!control.isPresent()) {
+				return Optional.empty();
+			}
+			controls[i] = control.get();
+		}
+		return Optional.of(LogicalPredicate.anyOf(controls));
+	}
+
+	/**
+	 * @return whether every condition reached its limit
+	 */
+	boolean isDone() {
+		return active == 0;
+	}
+
+	@Override
+	public boolean test(Resource resource) {
+		EvaluationContext context = null;
+		boolean found = false;
+		try {
+			for (int i = 0; i < conditions.length; ++i) {
+				if (!isActive(i)) {
+					continue;
+				}
+				if (compiled[i] && context == null) {
+					context = EvaluationContext.acquire(resource);
+					if (projection != null) {
+						context.project(projection);
+					}
+				}
+				if (conditions[i].test(compiled[i] ? context : resource)) {
+					found = true;
+					if (matched[i]++ >= startOfRange) {
+						callbacks[i].accept(resource);
+						if (!isActive(i)) {
+							--active;
+						}
+					}
+				}
+			}
+		} finally {
+			if (context != null) {
+				context.release();
+			}
+		}
+		return found;
+	}
+
+	private boolean isActive(int i) {
+		return limit <= 0 || matched[i] < startOfRange + limit;
+	}
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.sling.api.resource.Resource;
+
+import com.sas.sling.resource.parser.CompiledQuery;
+import com.sas.sling.resource.parser.FilterParser;
+import com.sas.sling.resource.parser.ParseException;
+import com.sas.sling.resource.parser.conversion.ConversionHandler;
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodeType;
+import com.sas.sling.resource.parser.predicates.ComparisonOperator;
+import com.sas.sling.resource.parser.provider.ConstantValue;
+import com.sas.sling.resource.parser.visitor.ValueVisitor;
+
+/**
+ * In memory inverted index of the values of selected properties of a subtree.
+ * The subtree is traversed once when the index is built, and each value of an
+ * indexed property is mapped to the paths of the resources that hold it. The
+ * elements of multi-valued properties are indexed separately.
+ * 
+ * The index is used by a locator through
+ * {@link ResourceLocator#usingIndex(PropertyIndex)}. A statement of the filter
+ * language which compares an indexed property with '==', 'in', 'contains' or
+ * 'contains any' against literal values is answered from the index. The
+ * candidates are taken from the paths of those values, combined according to
+ * the 'and' and 'or' of the statement, and the whole statement is tested
+ * against each of them, which applies the clauses that the index cannot
+ * answer. Statements without such a comparison traverse the subtree as usual.
+ * 
+ * The index is a snapshot. Resources that were removed or changed since it was
+ * built are never located by mistake, as the statement is tested against the
+ * current resources, but resources added since then are only found by a new
+ * index. Instances are immutable and may be shared between threads.
+ */
+public final class PropertyIndex {
+
+	private static final int[] NONE = new int[0];
+
+	private final Resource root;
+
+	// paths of the indexed resources, in the order of the traversal
+	private final String[] paths;
+
+	// position of each of the paths
+	private final Map<String, Integer> positions;
+
+	// sorted positions of the paths, by value and property
+	private final Map<String, Map<String, int[]>> postings;
+
+	// sorted positions of the paths with an empty multi-valued property
+	private final Map<String, int[]> empty;
+
+	private PropertyIndex(Resource root, String[] paths, Map<String, Map<String, int[]>> postings,
+			Map<String, int[]> empty) {
+		this.root = root;
+		this.paths = paths;
+		this.positions = new HashMap<>(paths.length * 4 / 3 + 1);
+		for (int i = 0; i < paths.length; ++i) {
+			positions.put(paths[i], i);
+		}
+		this.postings = postings;
+		this.empty = empty;
+	}
+
+	/**
+	 * Traverses the subtree of the resource and indexes the values of the
+	 * properties.
+	 * 
+	 * @param root
+	 *            start of the subtree
+	 * @param properties
+	 *            names of the properties, which may be those of a child
+	 *            resource such as {@code jcr:content/cq:template}
+	 * @return index of the subtree
+	 */
+	public static PropertyIndex build(Resource root, String... properties) {
+		Objects.requireNonNull(root, "root may not be null");
+		List<String> paths = new ArrayList<>();
+		Map<String, Map<String, List<Integer>>> values = new LinkedHashMap<>();
+		Map<String, List<Integer>> empty = new HashMap<>();
+		for (String property : properties) {
+			values.put(Objects.requireNonNull(property, "property may not be null"), new HashMap<>());
+			empty.put(property, new ArrayList<>());
+		}
+		try (Stream<Resource> stream = ResourceLocator.startFrom(root).stream()) {
+			stream.forEachOrdered(resource -> {
+				Integer position = paths.size();
+				paths.add(resource.getPath());
+				for (Map.Entry<String, Map<String, List<Integer>>> property : values.entrySet()) {
+					Object value = ValueVisitor.readProperty(resource, property.getKey());
+					if (value == null) {
+						continue;
+					}
+					if (!(value instanceof Object[])) {
+						post(property.getValue(), value, position);
+					} else if (((Object[]) value).length == 0) {
+						empty.get(property.getKey()).add(position);
+					} else {
+						for (Object element : (Object[]) value) {
+							post(property.getValue(), element, position);
+						}
+					}
+				}
+			});
+		}
+		Map<String, Map<String, int[]>> postings = new HashMap<>();
+		values.forEach((property, lists) -> {
+			Map<String, int[]> sorted = new HashMap<>();
+			lists.forEach((value, positions) -> sorted.put(value, toArray(positions)));
+			postings.put(property, sorted);
+		});
+		Map<String, int[]> emptyPositions = new HashMap<>();
+		empty.forEach((property, positions) -> emptyPositions.put(property, toArray(positions)));
+		return new PropertyIndex(root, paths.toArray(new String[paths.size()]), postings, emptyPositions);
+	}
+
+	/**
+	 * Provides the candidates of the statement beneath the start resource, as
+	 * the traversal would reach them. The start resource must be part of the
+	 * indexed subtree, and a traversal which continues after a resource can only
+	 * use the index if that resource is indexed.
+	 * 
+	 * @param start
+	 *            resource that the traversal starts from
+	 * @param query
+	 *            compiled statement
+	 * @param traversalControl
+	 *            decides whether a child resource is descended into, null to
+	 *            descend into every resource
+	 * @param continuation
+	 *            path of the last resource that was already processed
+	 * @param ordered
+	 *            whether the encounter order must be kept when splitting
+	 * @param stats
+	 *            statistics of the traversal, or null
+	 * @return traversal of the candidates, null if the subtree must be traversed
+	 */
+	Spliterator<Resource> spliterator(Resource start, CompiledQuery query, Predicate<Resource> traversalControl,
+			Optional<String> continuation, boolean ordered, TraversalStats stats) {
+		String startPath = start.getPath();
+		if (!query.getStatement().isPresent() || !isWithin(startPath, root.getPath())) {
+			return null;
+		}
+		int[] candidates = candidates(query.getStatement().get());
+		if (candidates == null) {
+			return null;
+		}
+		int after = -1;
+		if (continuation.isPresent()) {
+			Integer position = positions.get(continuation.get());
+			if (position == null) {
+				return null;
+			}
+			after = position;
+		}
+		List<String> found = new ArrayList<>(candidates.length);
+		for (int position : candidates) {
+			if (position > after && isWithin(paths[position], startPath)) {
+				found.add(paths[position]);
+			}
+		}
+		return new IndexSpliterator(start, found.toArray(new String[found.size()]), traversalControl, query,
+				ordered, stats);
+	}
+
+	/**
+	 * Determines whether the filter is answered from the index
+	 * 
+	 * @param filter
+	 *            statement of the filter language
+	 * @return false if locating resources traverses the subtree
+	 * @throws ParseException
+	 */
+	public boolean isIndexed(String filter) throws ParseException {
+		return candidates(new FilterParser(filter).Input()) != null;
+	}
+
+	/**
+	 * @param property
+	 *            name of an indexed property
+	 * @param value
+	 *            value of the property, or one of its elements
+	 * @return paths of the resources holding the value, in the order of the
+	 *         traversal
+	 */
+	public List<String> getPaths(String property, String value) {
+		Map<String, int[]> values = postings.get(property);
+		if (values == null) {
+			throw new IllegalArgumentException(property + " is not indexed");
+		}
+		int[] positions = values.getOrDefault(value, NONE);
+		String[] found = new String[positions.length];
+		for (int i = 0; i < positions.length; ++i) {
+			found[i] = paths[positions[i]];
+		}
+		return Collections.unmodifiableList(Arrays.asList(found));
+	}
+
+	/**
+	 * @return names of the indexed properties
+	 */
+	public Set<String> getProperties() {
+		return Collections.unmodifiableSet(postings.keySet());
+	}
+
+	/**
+	 * @return number of resources within the index
+	 */
+	public int size() {
+		return paths.length;
+	}
+
+	/*
+	 * sorted positions of every resource which may match the statement, null if
+	 * it cannot be answered from the index
+	 */
+	private int[] candidates(Node node) {
+		switch (node.type) {
+		case AND:
+			int[] intersection = null;
+			for (Node child : node.children) {
+				int[] positions = candidates(child);
+				if (positions != null) {
+					intersection = intersection == null ? positions : intersect(intersection, positions);
+				}
+			}
+			return intersection;
+		case OR:
+			int[] union = NONE;
+			for (Node child : node.children) {
+				int[] positions = candidates(child);
+				if (positions == null) {
+					return null;
+				}
+				union = union(union, positions);
+			}
+			return union;
+		case COMPARISON:
+			return comparison(node);
+		default:
+			return null;
+		}
+	}
+
+	private int[] comparison(Node node) {
+		Node property = node.leftNode;
+		Node literals = node.rightNode;
+		if (node.comparisonOp == ComparisonOperator.EQUAL && property.type != NodeType.PROPERTY) {
+			property = node.rightNode;
+			literals = node.leftNode;
+		}
+		if (property.type != NodeType.PROPERTY || !postings.containsKey(property.text)) {
+			return null;
+		}
+		List<String> keys = keys(literals);
+		if (keys == null) {
+			return null;
+		}
+		Map<String, int[]> values = postings.get(property.text);
+		switch (node.comparisonOp) {
+		case EQUAL:
+			return keys.size() == 1 ? values.getOrDefault(keys.get(0), NONE) : null;
+		case CONTAINS:
+			// every value is an element of the property
+			int[] intersection = values.getOrDefault(keys.get(0), NONE);
+			for (String key : keys) {
+				intersection = intersect(intersection, values.getOrDefault(key, NONE));
+			}
+			return intersection;
+		case CONTAINS_ANY:
+			return unionOf(values, keys, NONE);
+		case IN:
+			// every element of the property is one of the values, which an
+			// empty property satisfies as well
+			return unionOf(values, keys, empty.get(property.text));
+		default:
+			return null;
+		}
+	}
+
+	/*
+	 * values of a literal or a list of literals as they are compared, null for
+	 * anything else
+	 */
+	private static List<String> keys(Node node) {
+		List<Node> literals = node.type == NodeType.LIST ? node.children : Collections.singletonList(node);
+		List<String> keys = new ArrayList<>(literals.size());
+		ValueVisitor visitor = new ValueVisitor();
+		for (Node literal : literals) {
+			if (literal.type != NodeType.STRING && literal.type != NodeType.NUMBER) {
+				return null;
+			}
+			Function<Resource, Object> value = visitor.visit(literal, null);
+			if (!(value instanceof ConstantValue)) {
+				return null;
+			}
+			CharSequence key = ConversionHandler.getString(((ConstantValue) value).getValue());
+			if (key == null) {
+				return null;
+			}
+			keys.add(key.toString());
+		}
+		return keys.isEmpty() ? null : keys;
+	}
+
+	private static int[] unionOf(Map<String, int[]> values, List<String> keys, int[] initial) {
+		int[] union = initial;
+		for (String key : keys) {
+			union = union(union, values.getOrDefault(key, NONE));
+		}
+		return union;
+	}
+
+	private static boolean isWithin(String path, String ancestor) {
+		return path.equals(ancestor) || path.startsWith(ancestor.endsWith("/") ? ancestor : ancestor + "/");
+	}
+
+	private static void post(Map<String, List<Integer>> values, Object value, Integer position) {
+		CharSequence key = ConversionHandler.getString(value);
+		if (key != null) {
+			List<Integer> positions = values.computeIfAbsent(key.toString(), k -> new ArrayList<>());
+			// an element repeated within a value is posted once
+			if (positions.isEmpty() || !positions.get(positions.size() - 1).equals(position)) {
+				positions.add(position);
+			}
+		}
+	}
+
+	private static int[] toArray(List<Integer> positions) {
+		int[] array = new int[positions.size()];
+		for (int i = 0; i < array.length; ++i) {
+			array[i] = positions.get(i);
+		}
+		return array;
+	}
+
+	private static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int size = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] < b[j]) {
+				++i;
+			} else if (a[i] > b[j]) {
+				++j;
+			} else {
+				result[size++] = a[i];
+				++i;
+				++j;
+			}
+		}
+		return size == result.length ? result : Arrays.copyOf(result, size);
+	}
+
+	private static int[] union(int[] a, int[] b) {
+		if (a.length == 0) {
+			return b;
+		}
+		if (b.length == 0) {
+			return a;
+		}
+		int[] result = new int[a.length + b.length];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				result[size++] = a[i++];
+			} else if (a[i] > b[j]) {
+				result[size++] = b[j++];
+			} else {
+				result[size++] = a[i++];
+				++j;
+			}
+		}
+		while (i < a.length) {
+			result[size++] = a[i++];
+		}
+		while (j < b.length) {
+			result[size++] = b[j++];
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+}
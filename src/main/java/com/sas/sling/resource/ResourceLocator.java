@@ -13,26 +13,33 @@
  */
 package com.sas.sling.resource;
 
-import java.io.ByteArrayInputStream;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.apache.sling.api.resource.Resource;
 
+import com.sas.sling.resource.metrics.LocatorMetrics;
+import com.sas.sling.resource.parser.CompiledQuery;
+import com.sas.sling.resource.parser.EvaluationContext;
+import com.sas.sling.resource.parser.FilterParser;
 import com.sas.sling.resource.parser.ParseException;
-import com.sas.sling.resource.parser.Parser;
+import com.sas.sling.resource.parser.QueryCache;
+import com.sas.sling.resource.parser.conversion.ConversionHandler;
 import com.sas.sling.resource.parser.node.Node;
 import com.sas.sling.resource.parser.visitor.LogicVisitor;
+import com.sas.sling.resource.parser.visitor.ValueVisitor;
 
 /**
  * Base class from which a fluent api can be created or which can be defined
@@ -43,6 +50,12 @@ import com.sas.sling.resource.parser.visitor.LogicVisitor;
  */
 public class ResourceLocator {
 
+	// compiled statements shared by all locators
+	private static final QueryCache QUERY_CACHE = new QueryCache();
+
+	// receives the measurements of all locators
+	private static volatile LocatorMetrics metrics = LocatorMetrics.NONE;
+
 	// starting resource
 	private Resource resource;
 
@@ -54,6 +67,14 @@ public class ResourceLocator {
 
 	private long startOfRange;
 
+	private boolean ordered = false;
+
+	private Optional<String> continuation = Optional.empty();
+
+	private Optional<TraversalStats> stats = Optional.empty();
+
+	private Optional<PropertyIndex> index = Optional.empty();
+
 	private LogicVisitor logicVisitor = null;
 
 	/**
@@ -192,6 +213,73 @@ public class ResourceLocator {
 		return this;
 	}
 
+	/**
+	 * Continues a previous traversal right after the resource with the given
+	 * path, which is normally the last resource of the previous page. The
+	 * traversal resumes the depth first walk at that point without visiting any
+	 * of the resources that precede it, so every page costs about the same
+	 * regardless of how deep into the results it is.
+	 * 
+	 * The path must be the start resource or one of its descendants and is
+	 * combined with the same start resource and constraints as the traversal
+	 * that produced it. A null value starts from the beginning.
+	 * 
+	 * @param continuation
+	 *            path of the last resource that was already processed
+	 * @return this locator
+	 */
+	public ResourceLocator resumeAfter(String continuation) {
+		this.continuation = Optional.ofNullable(continuation);
+		return this;
+	}
+
+	/**
+	 * Collects statistics of the traversals of this locator, which can be read
+	 * once the stream of a traversal has been consumed. Nothing is collected by
+	 * default.
+	 * 
+	 * @param stats
+	 *            receives the statistics, null to stop collecting them
+	 * @return this locator
+	 */
+	public ResourceLocator collectStats(TraversalStats stats) {
+		this.stats = Optional.ofNullable(stats);
+		return this;
+	}
+
+	/**
+	 * Answers statements of the filter language from the index where possible.
+	 * Only the candidates which the index provides for a statement are visited,
+	 * in the order of the traversal, and everything else this locator is set
+	 * up with applies to them as it does to a traversal. Statements which the
+	 * index cannot answer, other predicates, and traversals which start
+	 * outside of the indexed subtree or continue after a resource that is not
+	 * indexed, traverse the subtree as usual.
+	 * 
+	 * @param index
+	 *            index of the subtree, null to always traverse it
+	 * @return this locator
+	 */
+	public ResourceLocator usingIndex(PropertyIndex index) {
+		this.index = Optional.ofNullable(index);
+		return this;
+	}
+
+	/**
+	 * Declares whether the streamed resources must keep the depth first encounter
+	 * order. Sequential streams always produce resources in that order, this only
+	 * restricts how a parallel stream may reorder them. Disabled by default as
+	 * ordering makes operations such as limit expensive on parallel streams.
+	 * 
+	 * @param ordered
+	 *            report the stream as ordered if 'true'
+	 * @return this locator
+	 */
+	public ResourceLocator ordered(boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+
 	/**
 	 * Recursively descends through the available resources and locates resources
 	 * that match the provided predicate. Additional restrictions can be set to
@@ -203,7 +291,61 @@ public class ResourceLocator {
 	 * @return List of matching resource or empty list if callback is enabled
 	 */
 	public List<Resource> locateResources(Predicate<Resource> condition) {
-		return stream(condition).collect(Collectors.toList());
+		try (Stream<Resource> stream = stream(condition)) {
+			return stream.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Locates the resources that match each of the named conditions in a single
+	 * traversal. Statements of the filter language are evaluated against the
+	 * same {@link EvaluationContext} for each resource, so the values they have
+	 * in common, such as a property read by several statements, are read once.
+	 * Other predicates receive the resource itself.
+	 * 
+	 * Range and limit apply to the matches of each condition separately, the
+	 * traversal stops once every condition reached its limit. Subtrees are
+	 * only pruned by the conditions when none of them can match within.
+	 * 
+	 * @param conditions
+	 *            predicates by name, see {@link #parse(Map)} for statements of
+	 *            the filter language
+	 * @return matching resources by the name of the condition, in the order of
+	 *         the conditions
+	 */
+	public Map<String, List<Resource>> locateEach(Map<String, ? extends Predicate<Resource>> conditions) {
+		Map<String, List<Resource>> found = new LinkedHashMap<>();
+		Map<String, Consumer<Resource>> callbacks = new LinkedHashMap<>();
+		for (String name : conditions.keySet()) {
+			List<Resource> matches = new ArrayList<>();
+			found.put(name, matches);
+			callbacks.put(name, matches::add);
+		}
+		locateEach(conditions, callbacks);
+		return found;
+	}
+
+	/**
+	 * Passes the resources that match each of the named conditions to the
+	 * callback of the same name, in a single traversal. The callback set
+	 * through {@link #usingCallback(Consumer)} is not used.
+	 * 
+	 * @param conditions
+	 *            predicates by name
+	 * @param callbacks
+	 *            consumers by the name of the condition whose matches they
+	 *            process
+	 * @see #locateEach(Map)
+	 */
+	public void locateEach(Map<String, ? extends Predicate<Resource>> conditions,
+			Map<String, ? extends Consumer<Resource>> callbacks) {
+		MultiQuery query = new MultiQuery(conditions, callbacks, startOfRange, limit);
+		Spliterator<Resource> spliterator = spliterator(query, query.getTraversalControl(), stats.orElse(null));
+		Consumer<Resource> ignore = resource -> {
+		};
+		while (!query.isDone() && spliterator.tryAdvance(ignore)) {
+			// matches are passed to the callbacks by the query
+		}
 	}
 
 	/**
@@ -221,6 +363,171 @@ public class ResourceLocator {
 		return locateResources(parse(condition));
 	}
 	
+	/**
+	 * Counts the resources that match the provided predicate. The located
+	 * resources are not collected so memory use does not depend on the number of
+	 * matches.
+	 * 
+	 * @param condition
+	 *            predicate to be used against all matching child resources
+	 * @return number of matching resources
+	 */
+	public long count(Predicate<Resource> condition) {
+		try (Stream<Resource> stream = stream(condition)) {
+			return stream.count();
+		}
+	}
+
+	/**
+	 * Counts the resources that match the provided filter. The located resources
+	 * are not collected so memory use does not depend on the number of matches.
+	 * 
+	 * @param condition
+	 *            filter to be used against all matching child resources
+	 * @return number of matching resources
+	 * @throws ParseException
+	 */
+	public long count(String condition) throws ParseException {
+		return count(parse(condition));
+	}
+
+	/**
+	 * Determines whether any resource matches the provided predicate. The
+	 * traversal stops at the first match without listing any further children.
+	 * 
+	 * @param condition
+	 *            predicate to be used against all matching child resources
+	 * @return true if at least one resource matches
+	 */
+	public boolean exists(Predicate<Resource> condition) {
+		try (Stream<Resource> stream = stream(condition)) {
+			return stream.findAny().isPresent();
+		}
+	}
+
+	/**
+	 * Determines whether any resource matches the provided filter. The traversal
+	 * stops at the first match without listing any further children.
+	 * 
+	 * @param condition
+	 *            filter to be used against all matching child resources
+	 * @return true if at least one resource matches
+	 * @throws ParseException
+	 */
+	public boolean exists(String condition) throws ParseException {
+		return exists(parse(condition));
+	}
+
+	/**
+	 * Locates the k greatest resources according to the comparator, such as the
+	 * most recently modified ones. Only k resources are held during the
+	 * traversal so memory use does not depend on the number of resources.
+	 * 
+	 * @param k
+	 *            maximum number of resources returned
+	 * @param comparator
+	 *            orders the resources
+	 * @return up to k resources, greatest first
+	 */
+	public List<Resource> topK(int k, Comparator<? super Resource> comparator) {
+		return topK(resource -> true, k, comparator);
+	}
+
+	/**
+	 * Locates the k greatest of the resources that match the provided predicate
+	 * according to the comparator. Only k resources are held during the
+	 * traversal so memory use does not depend on the number of matches. Of equal
+	 * resources the one located first ranks higher.
+	 * 
+	 * @param condition
+	 *            predicate to be used against all matching child resources
+	 * @param k
+	 *            maximum number of resources returned
+	 * @param comparator
+	 *            orders the matching resources
+	 * @return up to k resources, greatest first
+	 */
+	public List<Resource> topK(Predicate<Resource> condition, int k, Comparator<? super Resource> comparator) {
+		TopK.Ordered<Resource> top = new TopK.Ordered<>(k,
+				Objects.requireNonNull(comparator, "comparator may not be null"));
+		try (Stream<Resource> stream = stream(condition)) {
+			stream.forEachOrdered(resource -> top.offer(resource, resource));
+		}
+		return top.toList();
+	}
+
+	/**
+	 * Locates the k greatest of the resources that match the provided filter
+	 * according to the comparator. Only k resources are held during the
+	 * traversal so memory use does not depend on the number of matches.
+	 * 
+	 * @param condition
+	 *            filter to be used against all matching child resources
+	 * @param k
+	 *            maximum number of resources returned
+	 * @param comparator
+	 *            orders the matching resources
+	 * @return up to k resources, greatest first
+	 * @throws ParseException
+	 */
+	public List<Resource> topK(String condition, int k, Comparator<? super Resource> comparator)
+			throws ParseException {
+		return topK(parse(condition), k, comparator);
+	}
+
+	/**
+	 * Locates the k resources with the greatest keys among the resources that
+	 * match the provided predicate. The keys are compared as primitive values,
+	 * and only k resources are held during the traversal.
+	 * 
+	 * @param condition
+	 *            predicate to be used against all matching child resources
+	 * @param k
+	 *            maximum number of resources returned
+	 * @param key
+	 *            provides the key of a matching resource
+	 * @return up to k resources, greatest key first
+	 */
+	public List<Resource> topK(Predicate<Resource> condition, int k, ToLongFunction<? super Resource> key) {
+		Objects.requireNonNull(key, "key may not be null");
+		TopK.Keyed top = new TopK.Keyed(k);
+		try (Stream<Resource> stream = stream(condition)) {
+			stream.forEachOrdered(resource -> top.offer(key.applyAsLong(resource), resource));
+		}
+		return top.toList();
+	}
+
+	/**
+	 * Locates the k resources with the greatest value of a property among the
+	 * resources that match the provided filter. Dates are compared by their time
+	 * in milliseconds and numbers by their exact value, resources without a
+	 * numeric or date value of the property are left out. The property may be
+	 * that of a child resource, such as {@code jcr:content/cq:lastModified}.
+	 * 
+	 * @param condition
+	 *            filter to be used against all matching child resources
+	 * @param k
+	 *            maximum number of resources returned
+	 * @param property
+	 *            name of the property whose value is the key
+	 * @return up to k resources, greatest value first
+	 * @throws ParseException
+	 */
+	public List<Resource> topK(String condition, int k, String property) throws ParseException {
+		Objects.requireNonNull(property, "property may not be null");
+		Predicate<Resource> predicate = parse(condition);
+		TopK.Ordered<Number> top = new TopK.Ordered<>(k, TopK::compareNumbers);
+		try (Stream<Resource> stream = stream(predicate)) {
+			stream.forEachOrdered(resource -> {
+				Number value = ConversionHandler.getNumber(ValueVisitor.readProperty(resource, property));
+				if (value != null) {
+					top.offer(value, resource);
+				}
+			});
+		}
+		return top.toList();
+	}
+
 	/**
 	 * Provides a stream of resources starting from the initiator resource and
 	 * traversing through it's descendants The only fluent api check it performs is
@@ -249,61 +556,155 @@ public class ResourceLocator {
 	 * traversing through it's descendants The only fluent api check it performs is
 	 * of the traversal predicate.
 	 * 
+	 * The stream is sequential, calling {@code parallel()} on it splits the
+	 * traversal by sibling subtrees. Encounter order is only reported when
+	 * requested through {@link #ordered(boolean)}. Predicates and callbacks must
+	 * be safe to use from multiple threads when the stream is parallel.
+	 * 
+	 * When {@link #setMetrics(LocatorMetrics) metrics} are recorded, the
+	 * traversal of a statement of the filter language is reported once the
+	 * stream is closed.
+	 * 
 	 * @return self closing {@code Stream<Resource>} of unknown size.
 	 */
 	public Stream<Resource> stream(Predicate<Resource> condition) {
-		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Iterator<Resource>() {
-
-			LinkedList<Resource> resourcesToCheck = new LinkedList<>();
-			LinkedList<Resource> approvedChildren = new LinkedList<>();
-
-			{
-				resourcesToCheck.addFirst(resource);
-			}
+		TraversalStats traversalStats = stats.orElse(null);
+		LocatorMetrics recorder = metrics;
+		Optional<String> fingerprint = condition instanceof CompiledQuery
+				? ((CompiledQuery) condition).getFingerprint()
+				: Optional.empty();
+		Runnable report = null;
+		if (recorder != LocatorMetrics.NONE && fingerprint.isPresent()) {
+			// counts this traversal on its own, and adds to the collected statistics
+			TraversalStats execution = TraversalStats.forwardingTo(traversalStats);
+			long start = System.nanoTime();
+			report = () -> recorder.traversed(fingerprint.get(), execution.getVisitedCount(),
+					execution.getMatchedCount(), System.nanoTime() - start);
+			traversalStats = execution;
+		}
+		Optional<Predicate<Resource>> pruning = condition instanceof CompiledQuery
+				? ((CompiledQuery) condition).getTraversalControl()
+				: Optional.empty();
+		Stream<Resource> stream = StreamSupport.stream(spliterator(condition, pruning, traversalStats), false);
+		if (report != null) {
+			stream = stream.onClose(report);
+		}
+		if (startOfRange > 0) {
+			stream = stream.skip(startOfRange);
+		}
+		if (limit > 0) {
+			stream = stream.limit(limit);
+		}
+		if (callback.isPresent()) {
+			stream = stream.peek(callback.get());
+		}
+		return stream;
+	}
 
-			Resource current;
-
-			@Override
-			public boolean hasNext() {
-				do {
-					if (resourcesToCheck.isEmpty()) {
-						return false;
-					}
-
-					current = resourcesToCheck.removeFirst();
-
-					current.listChildren().forEachRemaining(child -> {
-						if (traversalControl.orElse(e -> true).test(child)) {
-							approvedChildren.push(child);
-						}
-					});
-					
-					resourcesToCheck.addAll(0, approvedChildren);
-					approvedChildren.clear();
-
-					if (startOfRange > 0) {
-						--startOfRange;
-					}
-					if (limit > 0 && startOfRange == 0) {
-						if (--limit == 0) {
-							resourcesToCheck.clear();
-						}
-					}
-				} while (startOfRange > 0 || !condition.test(current));
-				return true;
+	private Spliterator<Resource> spliterator(Predicate<Resource> condition, Optional<Predicate<Resource>> pruning,
+			TraversalStats traversalStats) {
+		Optional<Predicate<Resource>> restriction = traversalControl;
+		if (pruning.isPresent()) {
+			restriction = Optional.of(pruning.get().and(traversalControl.orElse(child -> true)));
+		}
+		Predicate<Resource> control = restriction.orElse(child -> true);
+		String relativePath = null;
+		if (continuation.isPresent()) {
+			String path = continuation.get();
+			String startPath = resource.getPath();
+			if (path.equals(startPath)) {
+				relativePath = "";
+			} else if (path.startsWith(startPath.endsWith("/") ? startPath : startPath + "/")) {
+				relativePath = path.substring(startPath.length());
+			} else {
+				throw new IllegalArgumentException(path + " is not beneath " + startPath);
 			}
-
-			@Override
-			public Resource next() {
-				callback.ifPresent(consumer -> consumer.accept(resource));
-				return current;
+		}
+		if (index.isPresent() && condition instanceof CompiledQuery) {
+			Spliterator<Resource> candidates = index.get().spliterator(resource, (CompiledQuery) condition,
+					restriction.orElse(null), continuation, ordered, traversalStats);
+			if (candidates != null) {
+				return candidates;
 			}
-		}, Spliterator.ORDERED | Spliterator.IMMUTABLE), false);
+		}
+		if (relativePath == null) {
+			return new ResourceSpliterator(resource, control, condition, ordered, traversalStats);
+		}
+		return ResourceSpliterator.resumeAfter(resource, relativePath, control, condition, ordered,
+				traversalStats);
 	}
 
+	/**
+	 * Compiles a statement of the filter language into a predicate. Conditions on
+	 * the resource path are additionally used to skip subtrees that cannot
+	 * contain a match when the predicate is used with this locator.
+	 * 
+	 * @param filter
+	 *            statement of the filter language
+	 * @return predicate which represents the statement
+	 * @throws ParseException
+	 */
 	public Predicate<Resource> parse(String filter) throws ParseException {
-		Node rootNode = new Parser(new ByteArrayInputStream(filter.getBytes())).Input();
-		return rootNode.accept(getVisitor(), null);
+		return QUERY_CACHE.get(filter, getVisitor().getValueVisitor().getFunctionsVersion(), this::compile);
+	}
+
+	/**
+	 * Compiles several statements of the filter language, such as the
+	 * conditions of {@link #locateEach(Map)}.
+	 * 
+	 * @param filters
+	 *            statements by name
+	 * @return predicates by name, in the order of the statements
+	 * @throws ParseException
+	 *             if any of the statements cannot be compiled
+	 */
+	public Map<String, Predicate<Resource>> parse(Map<String, String> filters) throws ParseException {
+		Map<String, Predicate<Resource>> conditions = new LinkedHashMap<>();
+		for (Map.Entry<String, String> filter : filters.entrySet()) {
+			conditions.put(filter.getKey(), parse(filter.getValue()));
+		}
+		return conditions;
+	}
+
+	/**
+	 * Cache of the compiled statements which is shared by every locator
+	 * 
+	 * @return the shared cache
+	 */
+	public static QueryCache getQueryCache() {
+		return QUERY_CACHE;
+	}
+
+	/**
+	 * Sets the receiver of the measurements of all locators. Statements of the
+	 * filter language are reported when they are compiled, and when the stream
+	 * of their traversal is closed. Nothing is recorded by default.
+	 * 
+	 * @param metrics
+	 *            receives the measurements, {@link LocatorMetrics#NONE} to stop
+	 *            recording
+	 */
+	public static void setMetrics(LocatorMetrics metrics) {
+		ResourceLocator.metrics = Objects.requireNonNull(metrics, "metrics may not be null");
+	}
+
+	/**
+	 * @return receiver of the measurements of all locators
+	 */
+	public static LocatorMetrics getMetrics() {
+		return metrics;
+	}
+
+	private CompiledQuery compile(String filter) throws ParseException {
+		long start = System.nanoTime();
+		Node rootNode = new FilterParser(filter).Input();
+		long parsed = System.nanoTime();
+		CompiledQuery query = getVisitor().compile(rootNode);
+		LocatorMetrics recorder = metrics;
+		if (recorder != LocatorMetrics.NONE && query.getFingerprint().isPresent()) {
+			recorder.compiled(query.getFingerprint().get(), parsed - start, System.nanoTime() - parsed);
+		}
+		return query;
 	}
 
 	private LogicVisitor getVisitor() {
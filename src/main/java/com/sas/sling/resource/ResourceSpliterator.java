@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Depth first traversal of a resource tree which can be split into independent
+ * sub traversals.
+ *
+ * The pending work is kept as a stack of child iterators, one for each level
+ * between the start resource and the current resource. Children are pulled
+ * from those iterators only when they are about to be visited so that memory
+ * grows with the depth of the tree rather than its breadth, and the children
+ * of a resource are not listed until the traversal moves past it.
+ *
+ * Splitting always hands the prefix of the encounter order to the new
+ * spliterator. Either the deeper levels of the stack are given away, or when
+ * only one level remains, a batch of its pending siblings.
+ *
+ */
+final class ResourceSpliterator implements Spliterator<Resource> {
+
+	private static final int MAX_BATCH = 1024;
+
+	// iterators over siblings that are still to be visited, deepest level first
+	private final Deque<Iterator<Resource>> frontier;
+
+	// resource which is still to be tested against the condition
+	private Resource head;
+
+	// whether the children of the head are part of this traversal
+	private boolean descendFromHead;
+
+	// visited resource whose children have not been listed yet
+	private Resource parent;
+
+	// number of siblings handed away by the next split of a single level
+	private int batch = 1;
+
+	private final Predicate<Resource> traversalControl;
+
+	private final Predicate<Resource> condition;
+
+	private final int characteristics;
+
+	// null unless statistics are collected
+	private final TraversalStats stats;
+
+	/**
+	 * @param start
+	 *            resource that the traversal starts from, this resource is not
+	 *            subject to the traversal control
+	 * @param traversalControl
+	 *            decides whether a child resource is descended into
+	 * @param condition
+	 *            decides whether a visited resource is part of the result
+	 * @param ordered
+	 *            whether the encounter order must be kept when splitting
+	 * @param stats
+	 *            statistics of the traversal, or null
+	 */
+	ResourceSpliterator(Resource start, Predicate<Resource> traversalControl, Predicate<Resource> condition,
+			boolean ordered, TraversalStats stats) {
+		this(new ArrayDeque<>(), traversalControl, condition, NONNULL | IMMUTABLE | (ordered ? ORDERED : 0), stats);
+		this.head = start;
+		this.descendFromHead = true;
+	}
+
+	/**
+	 * Creates a traversal which continues the depth first walk of the start
+	 * resource right after the given resource. Only the siblings along the path
+	 * to that resource are listed to position the frontier, none of the earlier
+	 * subtrees are visited again.
+	 * 
+	 * @param start
+	 *            resource that the original traversal started from
+	 * @param relativePath
+	 *            path of the last visited resource relative to the start
+	 * @param traversalControl
+	 *            decides whether a child resource is descended into
+	 * @param condition
+	 *            decides whether a visited resource is part of the result
+	 * @param ordered
+	 *            whether the encounter order must be kept when splitting
+	 * @param stats
+	 *            statistics of the traversal, or null
+	 * @return spliterator positioned after the last visited resource
+	 * @throws IllegalArgumentException
+	 *             if the resource no longer exists below the start resource
+	 */
+	static ResourceSpliterator resumeAfter(Resource start, String relativePath,
+			Predicate<Resource> traversalControl, Predicate<Resource> condition, boolean ordered,
+			TraversalStats stats) {
+		ResourceSpliterator resumed = new ResourceSpliterator(new ArrayDeque<>(), traversalControl, condition,
+				NONNULL | IMMUTABLE | (ordered ? ORDERED : 0), stats);
+		Resource current = start;
+		for (String name : relativePath.split("/")) {
+			if (name.isEmpty()) {
+				continue;
+			}
+			Iterator<Resource> siblings = resumed.childrenOf(current);
+			Resource next = null;
+			while (next == null && siblings.hasNext()) {
+				Resource sibling = siblings.next();
+				if (name.equals(sibling.getName())) {
+					next = sibling;
+				}
+			}
+			if (next == null) {
+				throw new IllegalArgumentException(
+						"resource " + relativePath + " does not exist beneath " + start.getPath());
+			}
+			resumed.frontier.push(siblings);
+			current = next;
+		}
+		resumed.parent = current;
+		return resumed;
+	}
+
+	private ResourceSpliterator(Deque<Iterator<Resource>> frontier, Predicate<Resource> traversalControl,
+			Predicate<Resource> condition, int characteristics, TraversalStats stats) {
+		this.frontier = frontier;
+		this.traversalControl = traversalControl;
+		this.condition = condition;
+		this.characteristics = characteristics;
+		this.stats = stats;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Resource> action) {
+		if (head != null) {
+			Resource current = head;
+			head = null;
+			if (descendFromHead) {
+				parent = current;
+			}
+			if (matches(current)) {
+				action.accept(current);
+				return true;
+			}
+		}
+		for (;;) {
+			if (parent != null) {
+				frontier.push(childrenOf(parent));
+				parent = null;
+			}
+			Iterator<Resource> siblings = frontier.peek();
+			if (siblings == null) {
+				return false;
+			}
+			if (!siblings.hasNext()) {
+				frontier.pop();
+				continue;
+			}
+			Resource current = siblings.next();
+			if (descends(current)) {
+				parent = current;
+				if (matches(current)) {
+					action.accept(current);
+					return true;
+				}
+			}
+		}
+	}
+
+	@Override
+	public Spliterator<Resource> trySplit() {
+		if (head != null) {
+			if (!descendFromHead && frontier.isEmpty() && parent == null) {
+				return null;
+			}
+			// the untested head comes first, hand it away on its own
+			ResourceSpliterator split = new ResourceSpliterator(new ArrayDeque<>(), traversalControl, condition,
+					characteristics, stats);
+			split.head = head;
+			if (descendFromHead) {
+				parent = head;
+			}
+			head = null;
+			return split;
+		}
+		if (parent != null) {
+			frontier.push(childrenOf(parent));
+			parent = null;
+		}
+		if (frontier.size() > 1) {
+			// every level above the outermost one precedes its remaining siblings
+			Deque<Iterator<Resource>> deeper = new ArrayDeque<>();
+			while (frontier.size() > 1) {
+				deeper.addLast(frontier.pollFirst());
+			}
+			return new ResourceSpliterator(deeper, traversalControl, condition, characteristics, stats);
+		}
+		Iterator<Resource> siblings = frontier.peek();
+		if (siblings == null) {
+			return null;
+		}
+		List<Resource> prefix = new ArrayList<>(batch);
+		while (prefix.size() < batch && siblings.hasNext()) {
+			prefix.add(siblings.next());
+		}
+		if (!siblings.hasNext()) {
+			frontier.pop();
+			if (prefix.isEmpty()) {
+				return null;
+			}
+			if (prefix.size() == 1) {
+				// a single subtree is left, split its root from its children
+				Resource last = prefix.get(0);
+				if (!descends(last)) {
+					return null;
+				}
+				head = last;
+				descendFromHead = true;
+				return trySplit();
+			}
+			// keep the second half of the last siblings
+			frontier.push(prefix.subList(prefix.size() / 2, prefix.size()).iterator());
+			prefix = prefix.subList(0, prefix.size() / 2);
+		}
+		batch = Math.min(batch * 2, MAX_BATCH);
+		Deque<Iterator<Resource>> split = new ArrayDeque<>();
+		split.push(prefix.iterator());
+		return new ResourceSpliterator(split, traversalControl, condition, characteristics, stats);
+	}
+
+	private boolean matches(Resource resource) {
+		return stats == null ? condition.test(resource) : stats.testCondition(condition, resource);
+	}
+
+	private boolean descends(Resource resource) {
+		return stats == null ? traversalControl.test(resource) : stats.testTraversalControl(traversalControl, resource);
+	}
+
+	private Iterator<Resource> childrenOf(Resource resource) {
+		if (stats != null) {
+			stats.listed();
+		}
+		return resource.listChildren();
+	}
+
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return characteristics;
+	}
+
+}
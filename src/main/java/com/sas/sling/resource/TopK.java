@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Keeps the k greatest of the resources offered to it. Only k resources are
+ * held at any time, the least of them at the root of a heap so that a new
+ * resource is compared against it alone. Of equal resources the one offered
+ * first ranks higher.
+ *
+ * Instances are not thread safe.
+ */
+abstract class TopK {
+
+	final int k;
+
+	// number of resources offered so far, orders equal resources
+	long offered;
+
+	TopK(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("value may not be negative");
+		}
+		this.k = k;
+	}
+
+	/**
+	 * @return the retained resources, greatest first
+	 */
+	abstract List<Resource> toList();
+
+	/*
+	 * orders numbers by their exact value, of any type. NaN ranks above every
+	 * other value as it does for Double.compare
+	 */
+	static int compareNumbers(Number lhValue, Number rhValue) {
+		if (isIntegral(lhValue) && isIntegral(rhValue)) {
+			return Long.compare(lhValue.longValue(), rhValue.longValue());
+		}
+		if (isFloating(lhValue) && isFloating(rhValue) || !isFinite(lhValue) || !isFinite(rhValue)) {
+			return Double.compare(lhValue.doubleValue(), rhValue.doubleValue());
+		}
+		return toBigDecimal(lhValue).compareTo(toBigDecimal(rhValue));
+	}
+
+	private static boolean isIntegral(Number value) {
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	private static boolean isFloating(Number value) {
+		return value instanceof Double || value instanceof Float;
+	}
+
+	private static boolean isFinite(Number value) {
+		return !isFloating(value) || !(Double.isNaN(value.doubleValue()) || Double.isInfinite(value.doubleValue()));
+	}
+
+	private static BigDecimal toBigDecimal(Number value) {
+		if (value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		}
+		if (value instanceof BigInteger) {
+			return new BigDecimal((BigInteger) value);
+		}
+		if (isIntegral(value)) {
+			return BigDecimal.valueOf(value.longValue());
+		}
+		return new BigDecimal(value.doubleValue());
+	}
+
+	/**
+	 * Orders the resources by a key which is compared by a comparator
+	 *
+	 * @param <K>
+	 *            type of the key
+	 */
+	static final class Ordered<K> extends TopK {
+
+		private final Comparator<? super K> comparator;
+
+		private final PriorityQueue<Entry<K>> heap;
+
+		Ordered(int k, Comparator<? super K> comparator) {
+			super(k);
+			this.comparator = comparator;
+			// least first, and of equal resources the one offered last
+			Comparator<Entry<K>> order = (a, b) -> comparator.compare(a.key, b.key);
+			this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)),
+					order.thenComparing((a, b) -> Long.compare(b.sequence, a.sequence)));
+		}
+
+		void offer(K key, Resource resource) {
+			long sequence = offered++;
+			if (heap.size() < k) {
+				heap.add(new Entry<>(key, resource, sequence));
+			} else if (k > 0 && comparator.compare(key, heap.peek().key) > 0) {
+				heap.poll();
+				heap.add(new Entry<>(key, resource, sequence));
+			}
+		}
+
+		@Override
+		List<Resource> toList() {
+			Resource[] found = new Resource[heap.size()];
+			for (int i = found.length - 1; i >= 0; --i) {
+				found[i] = heap.poll().resource;
+			}
+			return Arrays.asList(found);
+		}
+
+		private static final class Entry<K> {
+
+			final K key;
+
+			final Resource resource;
+
+			final long sequence;
+
+			Entry(K key, Resource resource, long sequence) {
+				this.key = key;
+				this.resource = resource;
+				this.sequence = sequence;
+			}
+		}
+	}
+
+	/**
+	 * Orders the resources by a primitive key, which is compared without boxing
+	 */
+	static final class Keyed extends TopK {
+
+		private long[] keys;
+
+		private long[] sequences;
+
+		private Resource[] resources;
+
+		private int size;
+
+		Keyed(int k) {
+			super(k);
+			int capacity = Math.min(k, 1024);
+			this.keys = new long[capacity];
+			this.sequences = new long[capacity];
+			this.resources = new Resource[capacity];
+		}
+
+		void offer(long key, Resource resource) {
+			long sequence = offered++;
+			if (size < k) {
+				ensureCapacity();
+				int i = size++;
+				set(i, key, sequence, resource);
+				siftUp(i);
+			} else if (k > 0 && key > keys[0]) {
+				set(0, key, sequence, resource);
+				siftDown(0);
+			}
+		}
+
+		@Override
+		List<Resource> toList() {
+			Resource[] found = new Resource[size];
+			for (int i = found.length - 1; i >= 0; --i) {
+				found[i] = resources[0];
+				--size;
+				set(0, keys[size], sequences[size], resources[size]);
+				resources[size] = null;
+				siftDown(0);
+			}
+			return Arrays.asList(found);
+		}
+
+		/*
+		 * whether the entry at i ranks below the one at j
+		 */
+		private boolean less(int i, int j) {
+			return keys[i] < keys[j] || (keys[i] == keys[j] && sequences[i] > sequences[j]);
+		}
+
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!less(i, parent)) {
+					return;
+				}
+				swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i) {
+			while (true) {
+				int least = i;
+				int left = 2 * i + 1;
+				int right = left + 1;
+				if (left < size && less(left, least)) {
+					least = left;
+				}
+				if (right < size && less(right, least)) {
+					least = right;
+				}
+				if (least == i) {
+					return;
+				}
+				swap(i, least);
+				i = least;
+			}
+		}
+
+		private void set(int i, long key, long sequence, Resource resource) {
+			keys[i] = key;
+			sequences[i] = sequence;
+			resources[i] = resource;
+		}
+
+		private void swap(int i, int j) {
+			long key = keys[i];
+			long sequence = sequences[i];
+			Resource resource = resources[i];
+			set(i, keys[j], sequences[j], resources[j]);
+			set(j, key, sequence, resource);
+		}
+
+		private void ensureCapacity() {
+			if (size == keys.length) {
+				int capacity = (int) Math.min(k, Math.max(16L, 2L * keys.length));
+				keys = Arrays.copyOf(keys, capacity);
+				sequences = Arrays.copyOf(sequences, capacity);
+				resources = Arrays.copyOf(resources, capacity);
+			}
+		}
+	}
+
+}
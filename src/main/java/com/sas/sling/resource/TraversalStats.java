@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Statistics of the traversals of a {@link ResourceLocator}, which tell where
+ * the time of a slow traversal went. Counts the resources which were tested
+ * against the condition, the resources which the traversal control kept from
+ * being descended into, the matches and how often children were listed.
+ * Optionally measures the time spent in the condition and in the traversal
+ * control.
+ *
+ * The values are complete once the stream of the traversal has been consumed.
+ * Every traversal adds to the same values, and as they are kept in
+ * {@link LongAdder}s the statistics may be shared by parallel streams.
+ */
+public final class TraversalStats {
+
+	private final boolean timed;
+
+	private final LongAdder tested = new LongAdder();
+
+	private final LongAdder matched = new LongAdder();
+
+	private final LongAdder pruned = new LongAdder();
+
+	private final LongAdder listings = new LongAdder();
+
+	private final LongAdder conditionNanos = new LongAdder();
+
+	private final LongAdder traversalControlNanos = new LongAdder();
+
+	// receives everything recorded by these statistics, may be null
+	private final TraversalStats next;
+
+	/**
+	 * Statistics which only count
+	 */
+	public TraversalStats() {
+		this(false, null);
+	}
+
+	private TraversalStats(boolean timed, TraversalStats next) {
+		this.timed = timed;
+		this.next = next;
+	}
+
+	/**
+	 * @return statistics which also measure the time spent in the predicates
+	 */
+	public static TraversalStats withTimers() {
+		return new TraversalStats(true, null);
+	}
+
+	/**
+	 * @param next
+	 *            statistics which additionally receive everything recorded, may
+	 *            be null
+	 * @return statistics of a single traversal, timed if the next statistics
+	 *         are
+	 */
+	static TraversalStats forwardingTo(TraversalStats next) {
+		return new TraversalStats(next != null && next.timed, next);
+	}
+
+	boolean testCondition(Predicate<Resource> condition, Resource resource) {
+		if (!timed) {
+			boolean result = condition.test(resource);
+			recordCondition(result, 0);
+			return result;
+		}
+		long start = System.nanoTime();
+		boolean result = condition.test(resource);
+		recordCondition(result, System.nanoTime() - start);
+		return result;
+	}
+
+	boolean testTraversalControl(Predicate<Resource> traversalControl, Resource resource) {
+		if (!timed) {
+			boolean result = traversalControl.test(resource);
+			recordTraversalControl(result, 0);
+			return result;
+		}
+		long start = System.nanoTime();
+		boolean result = traversalControl.test(resource);
+		recordTraversalControl(result, System.nanoTime() - start);
+		return result;
+	}
+
+	void listed() {
+		listings.increment();
+		if (next != null) {
+			next.listed();
+		}
+	}
+
+	private void recordCondition(boolean result, long nanos) {
+		tested.increment();
+		if (result) {
+			matched.increment();
+		}
+		if (timed) {
+			conditionNanos.add(nanos);
+		}
+		if (next != null) {
+			next.recordCondition(result, nanos);
+		}
+	}
+
+	private void recordTraversalControl(boolean result, long nanos) {
+		if (!result) {
+			pruned.increment();
+		}
+		if (timed) {
+			traversalControlNanos.add(nanos);
+		}
+		if (next != null) {
+			next.recordTraversalControl(result, nanos);
+		}
+	}
+
+	/**
+	 * @return whether the time spent in the predicates is measured
+	 */
+	public boolean isTimed() {
+		return timed;
+	}
+
+	/**
+	 * @return number of resources reached by the traversal, either tested or
+	 *         pruned
+	 */
+	public long getVisitedCount() {
+		return tested.sum() + pruned.sum();
+	}
+
+	/**
+	 * @return number of resources tested against the condition
+	 */
+	public long getTestedCount() {
+		return tested.sum();
+	}
+
+	/**
+	 * @return number of resources which matched the condition, these may exceed
+	 *         the resources of a stream which was limited or short circuited
+	 */
+	public long getMatchedCount() {
+		return matched.sum();
+	}
+
+	/**
+	 * @return number of resources which were neither tested nor descended into
+	 *         as the traversal control rejected them
+	 */
+	public long getPrunedCount() {
+		return pruned.sum();
+	}
+
+	/**
+	 * @return number of times the children of a resource were listed
+	 */
+	public long getListingCount() {
+		return listings.sum();
+	}
+
+	/**
+	 * @return nanoseconds spent in the condition, 0 if not timed
+	 */
+	public long getConditionNanos() {
+		return conditionNanos.sum();
+	}
+
+	/**
+	 * @return nanoseconds spent in the traversal control, 0 if not timed
+	 */
+	public long getTraversalControlNanos() {
+		return traversalControlNanos.sum();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder description = new StringBuilder("TraversalStats[visited=").append(getVisitedCount())
+				.append(", tested=").append(getTestedCount()).append(", matched=").append(getMatchedCount())
+				.append(", pruned=").append(getPrunedCount()).append(", listings=").append(getListingCount());
+		if (timed) {
+			description.append(", conditionNanos=").append(getConditionNanos()).append(", traversalControlNanos=")
+					.append(getTraversalControlNanos());
+		}
+		return description.append(']').toString();
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Default implementation of the {@link LocatorMetrics}, which keeps the
+ * measurements of each fingerprint in memory and exposes them as an MXBean.
+ * Measurements are recorded in striped counters, threads recording the same
+ * fingerprint do not wait for each other.
+ *
+ * The number of fingerprints is bounded, statements with a fingerprint beyond
+ * the bound are recorded under {@link #OTHER}.
+ *
+ * <pre>
+ * ResourceLocator.setMetrics(new JmxLocatorMetrics().register());
+ * </pre>
+ */
+public class JmxLocatorMetrics implements LocatorMetrics, LocatorMetricsMXBean {
+
+	public static final String OBJECT_NAME = "com.sas.sling.resourcelocator:type=LocatorMetrics";
+
+	/**
+	 * fingerprint of the statements which exceed the maximum number of
+	 * fingerprints
+	 */
+	public static final String OTHER = "*";
+
+	public static final int DEFAULT_MAXIMUM_FINGERPRINTS = 1000;
+
+	private final int maximumFingerprints;
+
+	private final ConcurrentMap<String, QueryMetrics> queries = new ConcurrentHashMap<>();
+
+	private ObjectName registeredName;
+
+	private MBeanServer server;
+
+	public JmxLocatorMetrics() {
+		this(DEFAULT_MAXIMUM_FINGERPRINTS);
+	}
+
+	/**
+	 * @param maximumFingerprints
+	 *            number of fingerprints which are recorded separately
+	 */
+	public JmxLocatorMetrics(int maximumFingerprints) {
+		if (maximumFingerprints < 1) {
+			throw new IllegalArgumentException("value must be positive");
+		}
+		this.maximumFingerprints = maximumFingerprints;
+	}
+
+	/**
+	 * Registers this instance with the platform MBean server under
+	 * {@link #OBJECT_NAME}
+	 *
+	 * @return this instance
+	 * @throws IllegalStateException
+	 *             if the MBean cannot be registered
+	 */
+	public JmxLocatorMetrics register() {
+		return register(ManagementFactory.getPlatformMBeanServer(), OBJECT_NAME);
+	}
+
+	/**
+	 * @param server
+	 *            server the MBean is registered with
+	 * @param name
+	 *            object name of the MBean
+	 * @return this instance
+	 * @throws IllegalStateException
+	 *             if the MBean cannot be registered
+	 */
+	public synchronized JmxLocatorMetrics register(MBeanServer server, String name) {
+		try {
+			ObjectName objectName = new ObjectName(name);
+			server.registerMBean(this, objectName);
+			this.server = server;
+			this.registeredName = objectName;
+			return this;
+		} catch (JMException e) {
+			throw new IllegalStateException("unable to register " + name, e);
+		}
+	}
+
+	/**
+	 * Removes the MBean from the server it was registered with, if any
+	 */
+	public synchronized void unregister() {
+		if (registeredName == null) {
+			return;
+		}
+		try {
+			server.unregisterMBean(registeredName);
+		} catch (JMException e) {
+			// already gone
+		}
+		registeredName = null;
+		server = null;
+	}
+
+	@Override
+	public void compiled(String fingerprint, long parseNanos, long compileNanos) {
+		metricsOf(fingerprint).compiled(parseNanos, compileNanos);
+	}
+
+	@Override
+	public void traversed(String fingerprint, long visited, long matched, long nanos) {
+		metricsOf(fingerprint).traversed(visited, matched, nanos);
+	}
+
+	@Override
+	public List<QueryMetricsSnapshot> getQueries() {
+		List<QueryMetricsSnapshot> snapshots = new ArrayList<>(queries.size());
+		for (QueryMetrics metrics : queries.values()) {
+			snapshots.add(metrics.snapshot());
+		}
+		snapshots.sort(Comparator.comparingLong(QueryMetricsSnapshot::getExecutions).reversed());
+		return snapshots;
+	}
+
+	/**
+	 * @param fingerprint
+	 *            fingerprint of a statement
+	 * @return measurements of the fingerprint, null if it was not recorded
+	 */
+	public QueryMetricsSnapshot getQuery(String fingerprint) {
+		QueryMetrics metrics = queries.get(fingerprint);
+		return metrics == null ? null : metrics.snapshot();
+	}
+
+	@Override
+	public int getFingerprintCount() {
+		return queries.size();
+	}
+
+	@Override
+	public long getExecutions() {
+		long executions = 0;
+		for (QueryMetrics metrics : queries.values()) {
+			executions += metrics.getExecutions();
+		}
+		return executions;
+	}
+
+	@Override
+	public void reset() {
+		queries.clear();
+	}
+
+	private QueryMetrics metricsOf(String fingerprint) {
+		QueryMetrics metrics = queries.get(fingerprint);
+		if (metrics != null) {
+			return metrics;
+		}
+		// the bound may be exceeded slightly by concurrent additions
+		String key = queries.size() < maximumFingerprints ? fingerprint : OTHER;
+		return queries.computeIfAbsent(key, QueryMetrics::new);
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.metrics;
+
+/**
+ * Receives the measurements of the statements of the filter language which are
+ * compiled and executed by a ResourceLocator. Statements are identified by their
+ * fingerprint, in which the literal values are replaced by '?'.
+ *
+ * Implementations are called by every thread which uses a locator and must not
+ * block.
+ *
+ * @see JmxLocatorMetrics
+ */
+public interface LocatorMetrics {
+
+	/**
+	 * Records nothing, the default of the locator
+	 */
+	LocatorMetrics NONE = new LocatorMetrics() {
+
+		@Override
+		public void compiled(String fingerprint, long parseNanos, long compileNanos) {
+			// not recorded
+		}
+
+		@Override
+		public void traversed(String fingerprint, long visited, long matched, long nanos) {
+			// not recorded
+		}
+	};
+
+	/**
+	 * Called when a statement was compiled, which happens when it is not cached
+	 *
+	 * @param fingerprint
+	 *            fingerprint of the statement
+	 * @param parseNanos
+	 *            time taken to parse the statement
+	 * @param compileNanos
+	 *            time taken to compile the parsed statement
+	 */
+	void compiled(String fingerprint, long parseNanos, long compileNanos);
+
+	/**
+	 * Called when the stream of a traversal was closed
+	 *
+	 * @param fingerprint
+	 *            fingerprint of the statement used as the condition
+	 * @param visited
+	 *            resources reached by the traversal
+	 * @param matched
+	 *            resources which matched the statement
+	 * @param nanos
+	 *            time from the creation of the stream until it was closed
+	 */
+	void traversed(String fingerprint, long visited, long matched, long nanos);
+
+}
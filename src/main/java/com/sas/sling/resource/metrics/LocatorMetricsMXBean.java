@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.metrics;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link JmxLocatorMetrics}
+ */
+public interface LocatorMetricsMXBean {
+
+	/**
+	 * @return measurements of each fingerprint, the most executed first
+	 */
+	List<QueryMetricsSnapshot> getQueries();
+
+	/**
+	 * @return number of fingerprints which are recorded
+	 */
+	int getFingerprintCount();
+
+	/**
+	 * @return number of closed traversals of all fingerprints
+	 */
+	long getExecutions();
+
+	/**
+	 * Discards all measurements
+	 */
+	void reset();
+
+}
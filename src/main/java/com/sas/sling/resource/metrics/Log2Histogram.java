@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non negative values with a bucket for each power of two. Bucket
+ * 0 counts the value 0, bucket n the values from 2^(n-1) to 2^n - 1. Recording
+ * a value increments a {@link LongAdder}, so that concurrent recording does not
+ * contend.
+ */
+final class Log2Histogram {
+
+	static final int BUCKETS = 64;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	private final LongAdder sum = new LongAdder();
+
+	Log2Histogram() {
+		for (int i = 0; i < BUCKETS; ++i) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	void record(long value) {
+		// a negative value can only be the result of a clock adjustment
+		long recorded = Math.max(value, 0);
+		buckets[BUCKETS - Long.numberOfLeadingZeros(recorded)].increment();
+		sum.add(recorded);
+	}
+
+	long[] getCounts() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; ++i) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+
+	long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @param counts
+	 *            counts of the buckets
+	 * @param quantile
+	 *            between 0 and 1
+	 * @return upper bound of the bucket which contains the quantile, 0 if
+	 *         nothing was recorded
+	 */
+	static long upperBound(long[] counts, double quantile) {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < counts.length; ++i) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0) {
+				// the bound of the last bucket overflows to Long.MAX_VALUE
+				return i == 0 ? 0 : (1L << i) - 1;
+			}
+		}
+		return 0;
+	}
+
+}
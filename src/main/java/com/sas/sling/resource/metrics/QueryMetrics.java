@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of the statements which share a fingerprint
+ */
+final class QueryMetrics {
+
+	private final String fingerprint;
+
+	private final LongAdder compilations = new LongAdder();
+
+	private final LongAdder executions = new LongAdder();
+
+	private final LongAdder visited = new LongAdder();
+
+	private final LongAdder matched = new LongAdder();
+
+	private final Log2Histogram parseNanos = new Log2Histogram();
+
+	private final Log2Histogram compileNanos = new Log2Histogram();
+
+	private final Log2Histogram traversalNanos = new Log2Histogram();
+
+	QueryMetrics(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	void compiled(long parseNanos, long compileNanos) {
+		compilations.increment();
+		this.parseNanos.record(parseNanos);
+		this.compileNanos.record(compileNanos);
+	}
+
+	void traversed(long visited, long matched, long nanos) {
+		executions.increment();
+		this.visited.add(visited);
+		this.matched.add(matched);
+		traversalNanos.record(nanos);
+	}
+
+	long getExecutions() {
+		return executions.sum();
+	}
+
+	QueryMetricsSnapshot snapshot() {
+		return new QueryMetricsSnapshot(fingerprint, compilations.sum(), executions.sum(), visited.sum(),
+				matched.sum(), parseNanos.getCounts(), parseNanos.getSum(), compileNanos.getCounts(),
+				compileNanos.getSum(), traversalNanos.getCounts(), traversalNanos.getSum());
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.metrics;
+
+/**
+ * Measurements of the statements which share a fingerprint, as they were when
+ * the snapshot was taken. The histograms have a bucket for each power of two:
+ * bucket 0 counts durations of 0 nanoseconds, bucket n the durations from
+ * 2^(n-1) to 2^n - 1 nanoseconds.
+ */
+public final class QueryMetricsSnapshot {
+
+	private final String fingerprint;
+
+	private final long compilations;
+
+	private final long executions;
+
+	private final long visited;
+
+	private final long matched;
+
+	private final long[] parseHistogram;
+
+	private final long parseNanos;
+
+	private final long[] compileHistogram;
+
+	private final long compileNanos;
+
+	private final long[] traversalHistogram;
+
+	private final long traversalNanos;
+
+	QueryMetricsSnapshot(String fingerprint, long compilations, long executions, long visited, long matched,
+			long[] parseHistogram, long parseNanos, long[] compileHistogram, long compileNanos,
+			long[] traversalHistogram, long traversalNanos) {
+		this.fingerprint = fingerprint;
+		this.compilations = compilations;
+		this.executions = executions;
+		this.visited = visited;
+		this.matched = matched;
+		this.parseHistogram = parseHistogram;
+		this.parseNanos = parseNanos;
+		this.compileHistogram = compileHistogram;
+		this.compileNanos = compileNanos;
+		this.traversalHistogram = traversalHistogram;
+		this.traversalNanos = traversalNanos;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return number of times a statement was compiled, cached statements are
+	 *         compiled once
+	 */
+	public long getCompilations() {
+		return compilations;
+	}
+
+	/**
+	 * @return number of closed traversals
+	 */
+	public long getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * @return resources reached by all of the traversals
+	 */
+	public long getVisited() {
+		return visited;
+	}
+
+	/**
+	 * @return resources matched by all of the traversals
+	 */
+	public long getMatched() {
+		return matched;
+	}
+
+	public long[] getParseHistogram() {
+		return parseHistogram.clone();
+	}
+
+	/**
+	 * @return total time spent parsing
+	 */
+	public long getParseNanos() {
+		return parseNanos;
+	}
+
+	public long[] getCompileHistogram() {
+		return compileHistogram.clone();
+	}
+
+	/**
+	 * @return total time spent compiling
+	 */
+	public long getCompileNanos() {
+		return compileNanos;
+	}
+
+	public long[] getTraversalHistogram() {
+		return traversalHistogram.clone();
+	}
+
+	/**
+	 * @return total time of the traversals
+	 */
+	public long getTraversalNanos() {
+		return traversalNanos;
+	}
+
+	/**
+	 * @return upper bound of the median traversal time
+	 */
+	public long getTraversalNanosP50() {
+		return Log2Histogram.upperBound(traversalHistogram, 0.5);
+	}
+
+	/**
+	 * @return upper bound of the 99th percentile of the traversal time
+	 */
+	public long getTraversalNanosP99() {
+		return Log2Histogram.upperBound(traversalHistogram, 0.99);
+	}
+
+}
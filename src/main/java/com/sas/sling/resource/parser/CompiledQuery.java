@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+import com.sas.sling.resource.parser.node.Node;
+
+/**
+ * Result of compiling a statement of the filter language. Tests resources like
+ * any other predicate and additionally carries what was learned about the
+ * statement during compilation.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class CompiledQuery implements Predicate<Resource> {
+
+	private final Predicate<Resource> condition;
+
+	private final Optional<Predicate<Resource>> traversalControl;
+
+	private final Projection projection;
+
+	private final String fingerprint;
+
+	private final Node statement;
+
+	/**
+	 * @param condition
+	 *            predicate which represents the statement
+	 * @param traversalControl
+	 *            predicate which rejects subtrees that cannot contain a match,
+	 *            may be null
+	 */
+	public CompiledQuery(Predicate<Resource> condition, Predicate<Resource> traversalControl) {
+		this(condition, traversalControl, null);
+	}
+
+	/**
+	 * @param condition
+	 *            predicate which represents the statement
+	 * @param traversalControl
+	 *            predicate which rejects subtrees that cannot contain a match,
+	 *            may be null
+	 * @param projection
+	 *            properties read by the condition, null if unknown
+	 */
+	public CompiledQuery(Predicate<Resource> condition, Predicate<Resource> traversalControl,
+			Projection projection) {
+		this(condition, traversalControl, projection, null);
+	}
+
+	/**
+	 * @param condition
+	 *            predicate which represents the statement
+	 * @param traversalControl
+	 *            predicate which rejects subtrees that cannot contain a match,
+	 *            may be null
+	 * @param projection
+	 *            properties read by the condition, null if unknown
+	 * @param fingerprint
+	 *            statement with its literals replaced, null if unknown
+	 */
+	public CompiledQuery(Predicate<Resource> condition, Predicate<Resource> traversalControl,
+			Projection projection, String fingerprint) {
+		this(condition, traversalControl, projection, fingerprint, null);
+	}
+
+	/**
+	 * @param condition
+	 *            predicate which represents the statement
+	 * @param traversalControl
+	 *            predicate which rejects subtrees that cannot contain a match,
+	 *            may be null
+	 * @param projection
+	 *            properties read by the condition, null if unknown
+	 * @param fingerprint
+	 *            statement with its literals replaced, null if unknown
+	 * @param statement
+	 *            root of the parsed statement, null if unknown
+	 */
+	public CompiledQuery(Predicate<Resource> condition, Predicate<Resource> traversalControl,
+			Projection projection, String fingerprint, Node statement) {
+		this.condition = Objects.requireNonNull(condition, "condition may not be null");
+		this.traversalControl = Optional.ofNullable(traversalControl);
+		this.projection = projection;
+		this.fingerprint = fingerprint;
+		this.statement = statement;
+	}
+
+	/**
+	 * Tests the resource through an {@link EvaluationContext}, so that values
+	 * used by several parts of the statement are only read once. The context of
+	 * the current thread is used unless the resource already is a context.
+	 * Statements which read a single value are tested against the resource
+	 * itself.
+	 */
+	@Override
+	public boolean test(Resource resource) {
+		if (projection != null && projection.isSingleRead()) {
+			return condition.test(resource);
+		}
+		if (resource instanceof EvaluationContext) {
+			return test((EvaluationContext) resource);
+		}
+		EvaluationContext context = EvaluationContext.acquire(resource);
+		try {
+			return test(context);
+		} finally {
+			context.release();
+		}
+	}
+
+	private boolean test(EvaluationContext context) {
+		if (projection != null) {
+			context.project(projection);
+		}
+		return condition.test(context);
+	}
+
+	/**
+	 * Traversal control derived from the 'path' conditions of the statement.
+	 * Rejects a resource when no resource in its subtree can match.
+	 *
+	 * @return predicate to prune the traversal, empty if every subtree may
+	 *         contain matches
+	 */
+	public Optional<Predicate<Resource>> getTraversalControl() {
+		return traversalControl;
+	}
+
+	/**
+	 * @return properties read by the statement, empty if unknown
+	 */
+	public Optional<Projection> getProjection() {
+		return Optional.ofNullable(projection);
+	}
+
+	/**
+	 * Statements which only differ in their literal values share a fingerprint
+	 * 
+	 * @return fingerprint of the statement, empty if unknown
+	 */
+	public Optional<String> getFingerprint() {
+		return Optional.ofNullable(fingerprint);
+	}
+
+	/**
+	 * The statement as it was parsed, before it was compiled. Used by a
+	 * {@link com.sas.sling.resource.PropertyIndex} to look up the candidates of
+	 * the statement.
+	 * 
+	 * @return root of the parsed statement, empty if unknown
+	 */
+	public Optional<Node> getStatement() {
+		return Optional.ofNullable(statement);
+	}
+
+}
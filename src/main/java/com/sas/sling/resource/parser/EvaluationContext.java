@@ -0,0 +1,265 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.api.resource.ValueMap;
+
+/**
+ * Wraps the resource that is being tested for the duration of a single
+ * evaluation, so that the work which the separate parts of a condition have in
+ * common is done only once. The ValueMap, resolved child resources and property
+ * values are kept after their first access. The properties of a
+ * {@link Projection} which belong to the resource itself are loaded together.
+ *
+ * The cached values are not refreshed, a context must not outlive the
+ * evaluation it was created for. Each thread keeps a context which is reused by
+ * its evaluations, see {@link #acquire(Resource)}. Instances are not thread
+ * safe.
+ */
+public final class EvaluationContext extends ResourceWrapper {
+
+	// marks a projected property which has not been read yet
+	private static final Object UNREAD = new Object();
+
+	private static final ThreadLocal<EvaluationContext> REUSABLE = ThreadLocal
+			.withInitial(() -> new EvaluationContext(null, true));
+
+	private final boolean reusable;
+
+	private boolean inUse;
+
+	private Resource resource;
+
+	private boolean adapted;
+
+	private ValueMap adaptedValueMap;
+
+	private ValueMap valueMap;
+
+	private Map<String, Resource> children;
+
+	private Map<String, Object> properties;
+
+	private Projection projection;
+
+	private Object[] projected;
+
+	// array of the projected values, kept for the next evaluation
+	private Object[] released;
+
+	public EvaluationContext(Resource resource) {
+		this(resource, false);
+	}
+
+	private EvaluationContext(Resource resource, boolean reusable) {
+		super(resource);
+		this.resource = resource;
+		this.reusable = reusable;
+	}
+
+	/**
+	 * @param resource
+	 *            resource to be tested
+	 * @return the resource if it already is a context, otherwise a new context
+	 *         for it
+	 */
+	public static EvaluationContext of(Resource resource) {
+		if (resource instanceof EvaluationContext) {
+			return (EvaluationContext) resource;
+		}
+		return new EvaluationContext(resource);
+	}
+
+	/**
+	 * Provides the context of the current thread for the resource, so that
+	 * testing a resource does not allocate a context of its own. The context
+	 * must be released once the evaluation is done. A new context is created
+	 * when the one of the thread is still in use, such as when a function
+	 * evaluates another statement.
+	 *
+	 * @param resource
+	 *            resource to be tested
+	 * @return context for the resource
+	 */
+	public static EvaluationContext acquire(Resource resource) {
+		EvaluationContext context = REUSABLE.get();
+		if (context.inUse) {
+			return new EvaluationContext(resource);
+		}
+		context.inUse = true;
+		context.resource = resource;
+		return context;
+	}
+
+	/**
+	 * Ends the evaluation of an acquired context. Everything it kept of the
+	 * resource is dropped, so that the next evaluation of the thread can use it.
+	 * Has no effect on a context that was not acquired.
+	 */
+	public void release() {
+		if (!reusable) {
+			return;
+		}
+		resource = null;
+		adapted = false;
+		adaptedValueMap = null;
+		valueMap = null;
+		if (children != null) {
+			children.clear();
+		}
+		if (properties != null) {
+			properties.clear();
+		}
+		projection = null;
+		if (projected != null) {
+			Arrays.fill(projected, null);
+			released = projected;
+			projected = null;
+		}
+		inUse = false;
+	}
+
+	@Override
+	public Resource getResource() {
+		return resource;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+		if (type != ValueMap.class) {
+			return super.adaptTo(type);
+		}
+		if (!adapted) {
+			adaptedValueMap = super.adaptTo(ValueMap.class);
+			adapted = true;
+		}
+		return (AdapterType) adaptedValueMap;
+	}
+
+	@Override
+	public ValueMap getValueMap() {
+		if (valueMap == null) {
+			valueMap = super.getValueMap();
+		}
+		return valueMap;
+	}
+
+	/**
+	 * Resolves each relative path once. The child is provided within a context
+	 * of its own, so that reading several of its properties adapts it once, and
+	 * a missing child is remembered as well.
+	 */
+	@Override
+	public Resource getChild(String relPath) {
+		if (children == null) {
+			children = new HashMap<>();
+		}
+		Resource child = children.get(relPath);
+		if (child == null && !children.containsKey(relPath)) {
+			child = super.getChild(relPath);
+			if (child != null) {
+				child = new EvaluationContext(child);
+			}
+			children.put(relPath, child);
+		}
+		return child;
+	}
+
+	/**
+	 * Sets the properties which are loaded together on the first access to one
+	 * of them. Only the first projection set on a context is used, properties
+	 * of other projections are read one by one.
+	 *
+	 * @param projection
+	 *            properties read by the statement which is evaluated
+	 */
+	public void project(Projection projection) {
+		if (this.projection == null) {
+			this.projection = projection;
+		}
+	}
+
+	/**
+	 * Provides the value of a property of a projection. If the projection is the
+	 * one used by this context, all of its properties that belong to the
+	 * resource itself are loaded on the first access. A nested property is read
+	 * on its own, on the first access to it, as it resolves a child resource. A
+	 * property of another projection is taken from the one used by this context
+	 * when it is part of it.
+	 *
+	 * @param projection
+	 *            projection which contains the property
+	 * @param index
+	 *            position of the property within the projection
+	 * @param reader
+	 *            reads the value of the named property from this context
+	 * @return value of the property
+	 */
+	public Object getProperty(Projection projection, int index, BiFunction<Resource, String, Object> reader) {
+		if (projection != this.projection) {
+			String name = projection.getName(index);
+			int shared = this.projection == null ? -1 : this.projection.indexOf(name);
+			if (shared < 0) {
+				return getProperty(name, reader);
+			}
+			return getProperty(this.projection, shared, reader);
+		}
+		if (projected == null) {
+			// the ValueMap is adapted once, and shared by every read
+			Object[] values = released != null && released.length >= projection.size() ? released
+					: new Object[projection.size()];
+			for (int i = 0; i < projection.size(); ++i) {
+				values[i] = projection.isNested(i) ? UNREAD : reader.apply(this, projection.getName(i));
+			}
+			projected = values;
+		}
+		Object value = projected[index];
+		if (value == UNREAD) {
+			value = reader.apply(this, projection.getName(index));
+			projected[index] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Provides the value of a property, which is read by the given function on
+	 * the first access
+	 *
+	 * @param name
+	 *            name of the property
+	 * @param reader
+	 *            reads the value of the named property from this context
+	 * @return value of the property
+	 */
+	public Object getProperty(String name, BiFunction<Resource, String, Object> reader) {
+		if (properties == null) {
+			properties = new HashMap<>();
+		}
+		Object value = properties.get(name);
+		if (value == null && !properties.containsKey(name)) {
+			value = reader.apply(this, name);
+			properties.put(name, value);
+		}
+		return value;
+	}
+
+}
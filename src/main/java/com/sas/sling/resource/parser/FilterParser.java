@@ -0,0 +1,431 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodesFactory;
+import com.sas.sling.resource.parser.predicates.ComparisonOperator;
+
+/**
+ * Recursive descent parser for the filter language which reads directly from a
+ * CharSequence. It accepts the same grammar as the generated {@link Parser},
+ * defined in src/main/javacc/locator.jj, and produces the same {@link Node}
+ * tree.
+ *
+ * Tokens are tracked as offsets into the source. The source is never copied,
+ * Strings are only created for the values that end up in the tree, such as
+ * literals, property names and function names.
+ *
+ * Instances are not thread safe and parse a single statement.
+ */
+public final class FilterParser implements ParserConstants {
+
+	// internal kind used for the whitespace tokens that are skipped
+	private static final int SKIP = -1;
+
+	// the alternatives of the COMP token, any sequence of them forms a token
+	private static final String[] COMPARISON_PARTS = { ">", "<", "=", "!", " in", " is", " less", " greater",
+			" than", " like", " not", " contains", " any" };
+
+	// every spelling that represents a valid comparison operator
+	private static final String[] OPERATOR_SPELLINGS = { "==", " is", "!=", " is not", ">", " greater than", ">=",
+			"<", " less than", "<=", " like", " like not", " not like", " contains", " contains not",
+			" contains any", " contains not any", " in", " not in" };
+
+	private static final ComparisonOperator[] OPERATORS = new ComparisonOperator[OPERATOR_SPELLINGS.length];
+
+	static {
+		for (int i = 0; i < OPERATOR_SPELLINGS.length; ++i) {
+			OPERATORS[i] = ComparisonOperator.getSimpleOperator(OPERATOR_SPELLINGS[i]).get();
+		}
+	}
+
+	private final CharSequence input;
+
+	private final int length;
+
+	private final NodesFactory factory = new NodesFactory();
+
+	// current token
+	private int kind;
+
+	private int start;
+
+	private int end;
+
+	// longest token found while scanning
+	private int matchKind;
+
+	private int matchLength;
+
+	/**
+	 * @param input
+	 *            statement of the filter language
+	 */
+	public FilterParser(CharSequence input) {
+		this.input = input;
+		this.length = input.length();
+	}
+
+	/**
+	 * Parses the statement
+	 *
+	 * @return root node of the statement
+	 * @throws ParseException
+	 *             if the statement does not conform to the grammar
+	 */
+	public Node Input() throws ParseException {
+		next();
+		Node node = or();
+		consume(EOF);
+		return node;
+	}
+
+	private Node or() throws ParseException {
+		final List<Node> nodes = new ArrayList<>(3);
+		nodes.add(and());
+		while (kind == OR) {
+			next();
+			nodes.add(and());
+		}
+		return nodes.size() != 1 ? factory.createOrNode(nodes) : nodes.get(0);
+	}
+
+	private Node and() throws ParseException {
+		final List<Node> nodes = new ArrayList<>(3);
+		nodes.add(constraint());
+		while (kind == AND) {
+			next();
+			nodes.add(constraint());
+		}
+		return nodes.size() != 1 ? factory.createAndNode(nodes) : nodes.get(0);
+	}
+
+	private Node constraint() throws ParseException {
+		if (kind == LPAREN) {
+			next();
+			Node node = or();
+			consume(RPAREN);
+			return node;
+		}
+		if (isArgumentStart()) {
+			return comparison();
+		}
+		throw unexpected(LPAREN, UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR, NULL, TRUE, FALSE,
+				LBRACKET, NUMBER);
+	}
+
+	private Node comparison() throws ParseException {
+		Node leftValue = argument();
+		if (kind != COMP) {
+			throw unexpected(COMP);
+		}
+		int operatorStart = start;
+		int operatorEnd = end;
+		next();
+		Node rightValue;
+		if (kind == LPAREN) {
+			next();
+			rightValue = factory.createList(commaSepArguments());
+			consume(RPAREN);
+		} else if (isArgumentStart()) {
+			rightValue = argument();
+		} else {
+			throw unexpected(UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR, NULL, TRUE, FALSE, LPAREN,
+					LBRACKET, NUMBER);
+		}
+		ComparisonOperator operator = operator(operatorStart, operatorEnd);
+		if (operator == null) {
+			throw new TokenMgrError("'" + input.subSequence(operatorStart, operatorEnd) + "' is not a valid comparison",
+					TokenMgrError.LEXICAL_ERROR);
+		}
+		return factory.createComparisonNode(operator, leftValue, rightValue);
+	}
+
+	private List<Node> arguments() throws ParseException {
+		if (kind == LPAREN) {
+			next();
+			List<Node> list = kind == RPAREN ? new ArrayList<>() : commaSepArguments();
+			consume(RPAREN);
+			return list;
+		}
+		if (isArgumentStart()) {
+			return Arrays.asList(argument());
+		}
+		throw unexpected(LPAREN, UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR, NULL, TRUE, FALSE,
+				LBRACKET, NUMBER);
+	}
+
+	private List<Node> commaSepArguments() throws ParseException {
+		final List<Node> list = new ArrayList<>(3);
+		list.add(argument());
+		while (kind == COMMA) {
+			next();
+			list.add(argument());
+		}
+		return list;
+	}
+
+	private Node argument() throws ParseException {
+		switch (kind) {
+		case DOUBLE_QUOTED_STR:
+		case SINGLE_QUOTED_STR:
+		case NUMBER:
+		case NULL:
+		case TRUE:
+		case FALSE:
+			Node literal = factory.createArgument(kind, input, start, end);
+			next();
+			return literal;
+		case LBRACKET:
+			next();
+			if (kind != UNRESERVED_STR) {
+				throw unexpected(UNRESERVED_STR);
+			}
+			Node property = factory.createPropertySelector(input.subSequence(start, end).toString());
+			next();
+			consume(RBRACKET);
+			return property;
+		case UNRESERVED_STR:
+			Node selector = factory.createArgument(kind, input, start, end);
+			next();
+			return factory.createFunction(selector, arguments());
+		default:
+			throw unexpected(UNRESERVED_STR, SINGLE_QUOTED_STR, DOUBLE_QUOTED_STR, NULL, TRUE, FALSE, LBRACKET,
+					NUMBER);
+		}
+	}
+
+	private boolean isArgumentStart() {
+		switch (kind) {
+		case UNRESERVED_STR:
+		case SINGLE_QUOTED_STR:
+		case DOUBLE_QUOTED_STR:
+		case NULL:
+		case TRUE:
+		case FALSE:
+		case LBRACKET:
+		case NUMBER:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private void consume(int expected) throws ParseException {
+		if (kind != expected) {
+			throw unexpected(expected);
+		}
+		next();
+	}
+
+	/*
+	 * finds the operator for the comparison token without creating its image
+	 */
+	private ComparisonOperator operator(int from, int to) {
+		for (int i = 0; i < OPERATOR_SPELLINGS.length; ++i) {
+			String spelling = OPERATOR_SPELLINGS[i];
+			if (spelling.length() == to - from && matchesAt(from, spelling)) {
+				return OPERATORS[i];
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Advances to the next token. Like the generated token manager the longest
+	 * match wins and ties go to the token defined first in the grammar.
+	 */
+	private void next() {
+		int position = end;
+		for (;;) {
+			if (position >= length) {
+				kind = EOF;
+				start = end = position;
+				return;
+			}
+			char c = input.charAt(position);
+			matchKind = SKIP;
+			matchLength = c == ' ' || c == '\t' ? 1 : 0;
+			consider(UNRESERVED_STR, unreservedLength(position));
+			if (c == '\'') {
+				consider(SINGLE_QUOTED_STR, quotedLength(position, c));
+			} else if (c == '"') {
+				consider(DOUBLE_QUOTED_STR, quotedLength(position, c));
+			} else if (c == ' ') {
+				consider(AND, matchesAt(position, " && ") ? 4 : matchesAt(position, " and ") ? 5 : 0);
+				consider(OR, matchesAt(position, " || ") || matchesAt(position, " or ") ? 4 : 0);
+				consider(NULL, matchesAt(position, " null") ? 5 : 0);
+				consider(TRUE, matchesAt(position, " true") ? 5 : 0);
+				consider(FALSE, matchesAt(position, " false") ? 6 : 0);
+			}
+			consider(LPAREN, c == '(' ? 1 : 0);
+			consider(RPAREN, c == ')' ? 1 : 0);
+			consider(LBRACKET, c == '[' ? 1 : 0);
+			consider(RBRACKET, c == ']' ? 1 : 0);
+			consider(COMMA, c == ',' ? 1 : 0);
+			consider(COMP, comparisonLength(position));
+			consider(NUMBER, numberLength(position));
+			if (c == '.') {
+				int fraction = digitsLength(position + 1);
+				consider(FRACTIONAL_DIGITS, fraction > 0 ? fraction + 1 : 0);
+			}
+			consider(EXPONENT, exponentLength(position));
+			if (matchLength == 0) {
+				throw lexicalError(position, c);
+			}
+			if (matchKind != SKIP) {
+				kind = matchKind;
+				start = position;
+				end = position + matchLength;
+				return;
+			}
+			position += matchLength;
+		}
+	}
+
+	/*
+	 * keeps the candidate if it is longer than the current match
+	 */
+	private void consider(int candidateKind, int candidateLength) {
+		if (candidateLength > matchLength) {
+			matchKind = candidateKind;
+			matchLength = candidateLength;
+		}
+	}
+
+	private int unreservedLength(int position) {
+		int index = position;
+		while (index < length) {
+			char c = input.charAt(index);
+			if ("\"'(),=<> []+-.".indexOf(c) >= 0 || (c >= '0' && c <= '9')) {
+				break;
+			}
+			++index;
+		}
+		return index - position;
+	}
+
+	private int quotedLength(int position, char quote) {
+		int index = position + 1;
+		while (index < length) {
+			char c = input.charAt(index);
+			if (c == quote) {
+				return index + 1 - position;
+			}
+			index += c == '\\' ? 2 : 1;
+		}
+		return 0;
+	}
+
+	private int comparisonLength(int position) {
+		int index = position;
+		boolean matched = true;
+		while (matched) {
+			matched = false;
+			for (String part : COMPARISON_PARTS) {
+				if (matchesAt(index, part)) {
+					index += part.length();
+					matched = true;
+					break;
+				}
+			}
+		}
+		return index - position;
+	}
+
+	private int numberLength(int position) {
+		int index = position;
+		if (index < length && input.charAt(index) == '-') {
+			++index;
+		}
+		int digits = digitsLength(index);
+		if (digits == 0) {
+			return 0;
+		}
+		index += digits;
+		if (index < length && input.charAt(index) == '.') {
+			int fraction = digitsLength(index + 1);
+			if (fraction > 0) {
+				index += fraction + 1;
+			}
+		}
+		return index + exponentLength(index) - position;
+	}
+
+	private int exponentLength(int position) {
+		if (position >= length || (input.charAt(position) != 'e' && input.charAt(position) != 'E')) {
+			return 0;
+		}
+		int index = position + 1;
+		if (index < length && (input.charAt(index) == '+' || input.charAt(index) == '-')) {
+			++index;
+		}
+		int digits = digitsLength(index);
+		return digits == 0 ? 0 : index + digits - position;
+	}
+
+	private int digitsLength(int position) {
+		int index = position;
+		while (index < length && input.charAt(index) >= '0' && input.charAt(index) <= '9') {
+			++index;
+		}
+		return index - position;
+	}
+
+	private boolean matchesAt(int position, String text) {
+		if (position + text.length() > length) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); ++i) {
+			if (input.charAt(position + i) != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private ParseException unexpected(int... expected) {
+		StringBuilder message = new StringBuilder("Encountered ");
+		if (kind == EOF) {
+			message.append("<EOF>");
+		} else {
+			message.append('"').append(input, start, end).append('"');
+		}
+		message.append(" at column ").append(start + 1).append(". Was expecting one of:");
+		for (int expectedKind : expected) {
+			message.append(' ').append(tokenImage[expectedKind]);
+		}
+		return new ParseException(message.toString());
+	}
+
+	private TokenMgrError lexicalError(int position, char c) {
+		int line = 1;
+		int column = 1;
+		for (int i = 0; i < position; ++i) {
+			if (input.charAt(i) == '\n') {
+				++line;
+				column = 1;
+			} else {
+				++column;
+			}
+		}
+		return new TokenMgrError(false, DEFAULT, line, column, "", c, TokenMgrError.LEXICAL_ERROR);
+	}
+
+}
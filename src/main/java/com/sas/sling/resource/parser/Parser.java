@@ -105,7 +105,25 @@ public final class Parser implements ParserConstants {
   Node rightValue;
     leftValue = Argument();
     op = jj_consume_token(COMP);
-    rightValue = Argument();
+    switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
+    case UNRESERVED_STR:
+    case SINGLE_QUOTED_STR:
+    case DOUBLE_QUOTED_STR:
+    case NULL:
+    case TRUE:
+    case FALSE:
+    case LBRACKET:
+    case NUMBER:
+      rightValue = Argument();
+      break;
+    case LPAREN:
+      rightValue = ValueList();
+      break;
+    default:
+      jj_la1[3] = jj_gen;
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
     String comparison = op.image;
     Optional<ComparisonOperator> oper = ComparisonOperator.getSimpleOperator(comparison);
     if (!oper.isPresent()) {
@@ -138,7 +156,7 @@ public final class Parser implements ParserConstants {
         value = CommaSepArguments();
         break;
       default:
-        jj_la1[3] = jj_gen;
+        jj_la1[4] = jj_gen;
         ;
       }
       jj_consume_token(RPAREN);
@@ -156,7 +174,7 @@ public final class Parser implements ParserConstants {
     {if (true) return Arrays.asList((Node) value);}
       break;
     default:
-      jj_la1[4] = jj_gen;
+      jj_la1[5] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -175,7 +193,7 @@ public final class Parser implements ParserConstants {
         ;
         break;
       default:
-        jj_la1[5] = jj_gen;
+        jj_la1[6] = jj_gen;
         break label_3;
       }
       jj_consume_token(COMMA);
@@ -186,6 +204,15 @@ public final class Parser implements ParserConstants {
     throw new Error("Missing return statement in function");
   }
 
+  final public Node ValueList() throws ParseException {
+  List < Node > children;
+    jj_consume_token(LPAREN);
+    children = CommaSepArguments();
+    jj_consume_token(RPAREN);
+    {if (true) return factory.createList(children);}
+    throw new Error("Missing return statement in function");
+  }
+
   final public Node Argument() throws ParseException {
   Node selector = null;
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
@@ -204,7 +231,7 @@ public final class Parser implements ParserConstants {
       selector = Function();
       break;
     default:
-      jj_la1[6] = jj_gen;
+      jj_la1[7] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -243,7 +270,7 @@ public final class Parser implements ParserConstants {
       jj_consume_token(FALSE);
       break;
     default:
-      jj_la1[7] = jj_gen;
+      jj_la1[8] = jj_gen;
       jj_consume_token(-1);
       throw new ParseException();
     }
@@ -269,13 +296,13 @@ public final class Parser implements ParserConstants {
   public Token jj_nt;
   private int jj_ntk;
   private int jj_gen;
-  final private int[] jj_la1 = new int[8];
+  final private int[] jj_la1 = new int[9];
   static private int[] jj_la1_0;
   static {
       jj_la1_init_0();
    }
    private static void jj_la1_init_0() {
-      jj_la1_0 = new int[] {0x4000,0x2000,0x1179c00,0x1139c00,0x1179c00,0x400000,0x1139c00,0x1039800,};
+      jj_la1_0 = new int[] {0x4000,0x2000,0x1179c00,0x1179c00,0x1139c00,0x1179c00,0x400000,0x1139c00,0x1039800,};
    }
 
   /** Constructor with InputStream. */
@@ -289,7 +316,7 @@ public final class Parser implements ParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 8; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 9; i++) jj_la1[i] = -1;
   }
 
   /** Reinitialise. */
@@ -303,7 +330,7 @@ public final class Parser implements ParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 8; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 9; i++) jj_la1[i] = -1;
   }
 
   /** Constructor. */
@@ -313,7 +340,7 @@ public final class Parser implements ParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 8; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 9; i++) jj_la1[i] = -1;
   }
 
   /** Reinitialise. */
@@ -323,7 +350,7 @@ public final class Parser implements ParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 8; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 9; i++) jj_la1[i] = -1;
   }
 
   /** Constructor with generated Token Manager. */
@@ -332,7 +359,7 @@ public final class Parser implements ParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 8; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 9; i++) jj_la1[i] = -1;
   }
 
   /** Reinitialise. */
@@ -341,7 +368,7 @@ public final class Parser implements ParserConstants {
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
-    for (int i = 0; i < 8; i++) jj_la1[i] = -1;
+    for (int i = 0; i < 9; i++) jj_la1[i] = -1;
   }
 
   private Token jj_consume_token(int kind) throws ParseException {
@@ -397,7 +424,7 @@ public final class Parser implements ParserConstants {
       la1tokens[jj_kind] = true;
       jj_kind = -1;
     }
-    for (int i = 0; i < 8; i++) {
+    for (int i = 0; i < 9; i++) {
       if (jj_la1[i] == jj_gen) {
         for (int j = 0; j < 32; j++) {
           if ((jj_la1_0[i] & (1<<j)) != 0) {
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Properties which are read by a compiled statement.
+ *
+ * An {@link EvaluationContext} loads the properties of the resource together
+ * on the first access to one of them, instead of reading each of them when the
+ * comparison is evaluated. The values are kept as they are read, the
+ * comparisons convert them when they need to. Nested properties, such as
+ * [jcr:content/jcr:title], resolve a child resource and are only read when a
+ * comparison needs them.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class Projection {
+
+	private static final Projection EMPTY = new Projection(new String[0], 0, false);
+
+	private final String[] names;
+
+	private final boolean[] nested;
+
+	private final int references;
+
+	private final boolean opaque;
+
+	/**
+	 * @param names
+	 *            distinct names of the properties
+	 * @param references
+	 *            number of times properties are read by the statement
+	 * @param opaque
+	 *            whether the statement calls functions that may read from the
+	 *            resource in ways that are not known
+	 */
+	public Projection(String[] names, int references, boolean opaque) {
+		this.names = names.clone();
+		this.nested = new boolean[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			// same rule as ValueVisitor.readProperty
+			nested[i] = names[i].lastIndexOf('/') > 0;
+		}
+		this.references = references;
+		this.opaque = opaque;
+	}
+
+	public static Projection empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Combines the properties of several statements which are evaluated against
+	 * the same resources. A property read by several of them is part of the
+	 * result once.
+	 *
+	 * @param projections
+	 *            properties of each of the statements
+	 * @return properties read by any of the statements
+	 */
+	public static Projection union(Iterable<Projection> projections) {
+		List<String> names = new ArrayList<>();
+		int references = 0;
+		boolean opaque = false;
+		for (Projection projection : projections) {
+			for (int i = 0; i < projection.names.length; ++i) {
+				if (!names.contains(projection.names[i])) {
+					names.add(projection.names[i]);
+				}
+			}
+			references += projection.references;
+			opaque |= projection.opaque;
+		}
+		if (names.isEmpty() && !opaque) {
+			return EMPTY;
+		}
+		return new Projection(names.toArray(new String[names.size()]), references, opaque);
+	}
+
+	public List<String> getNames() {
+		return Collections.unmodifiableList(Arrays.asList(names));
+	}
+
+	/**
+	 * @return whether an evaluation can avoid reading the same value more than
+	 *         once without an {@link EvaluationContext}
+	 */
+	public boolean isSingleRead() {
+		return references <= 1 && !opaque;
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public String getName(int index) {
+		return names[index];
+	}
+
+	/**
+	 * @param index
+	 *            position of the property within the projection
+	 * @return whether the property is read from a child resource
+	 */
+	public boolean isNested(int index) {
+		return nested[index];
+	}
+
+	/**
+	 * @param name
+	 *            name of the property
+	 * @return position of the property within the projection, -1 if it is not
+	 *         part of it
+	 */
+	public int indexOf(String name) {
+		for (int i = 0; i < names.length; ++i) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread safe cache of compiled statements. Entries are keyed by the
+ * text of the statement and the version of the registered functions. The
+ * least recently used entry is evicted once the maximum size is reached.
+ */
+public final class QueryCache {
+
+	/**
+	 * Compiles a statement on a cache miss
+	 */
+	@FunctionalInterface
+	public interface Compiler {
+		CompiledQuery compile(String filter) throws ParseException;
+	}
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 512;
+
+	private final int maximumSize;
+
+	// access ordered, guarded by itself
+	private final LinkedHashMap<Key, CompiledQuery> entries;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	public QueryCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * @param maximumSize
+	 *            number of compiled statements kept, 0 disables caching
+	 */
+	public QueryCache(int maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("value may not be negative");
+		}
+		this.maximumSize = maximumSize;
+		this.entries = new LinkedHashMap<Key, CompiledQuery>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CompiledQuery> eldest) {
+				if (size() > QueryCache.this.maximumSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Provides the compiled statement for the filter, compiling it on a miss.
+	 * Compilation happens outside of the lock so concurrent misses of the same
+	 * statement may compile it more than once.
+	 *
+	 * @param filter
+	 *            statement of the filter language
+	 * @param functionsVersion
+	 *            version of the functions registered with the compiler
+	 * @param compiler
+	 *            used to compile the filter when it is not cached
+	 * @return compiled statement
+	 * @throws ParseException
+	 *             if the filter cannot be compiled
+	 */
+	public CompiledQuery get(String filter, long functionsVersion, Compiler compiler) throws ParseException {
+		if (maximumSize == 0) {
+			misses.increment();
+			return compiler.compile(filter);
+		}
+		Key key = new Key(filter, functionsVersion);
+		CompiledQuery query;
+		synchronized (entries) {
+			query = entries.get(key);
+		}
+		if (query != null) {
+			hits.increment();
+			return query;
+		}
+		misses.increment();
+		query = compiler.compile(filter);
+		synchronized (entries) {
+			CompiledQuery existing = entries.putIfAbsent(key, query);
+			return existing != null ? existing : query;
+		}
+	}
+
+	/**
+	 * Removes all entries, the counters are kept.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private static final class Key {
+
+		private final String filter;
+
+		private final long functionsVersion;
+
+		private final int hash;
+
+		Key(String filter, long functionsVersion) {
+			this.filter = Objects.requireNonNull(filter, "filter may not be null");
+			this.functionsVersion = functionsVersion;
+			this.hash = 31 * filter.hashCode() + Long.hashCode(functionsVersion);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return filter.equals(other.filter) && functionsVersion == other.functionsVersion;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+}
@@ -14,7 +14,16 @@
 package com.sas.sling.resource.parser.conversion;
 
 import java.time.Instant;
+import java.util.Calendar;
 
+/**
+ * Converts the values of a comparison to a String or a Number. Values which
+ * already are of the requested type are returned as they are, so that the
+ * common comparisons do not create objects for each resource.
+ * 
+ * Properties are provided as they are stored, a Calendar is converted the same
+ * way as the Instant it represents.
+ */
 public class ConversionHandler {
 	
 	
@@ -25,19 +34,14 @@ public class ConversionHandler {
 		if (initialValue instanceof CharSequence) {
 			return (CharSequence)initialValue;
 		}
-		
-		Converter converter = null;
-		if (initialValue instanceof Number) {
-			converter = new ConverterForNumber((Number) initialValue);
+		if (initialValue instanceof Instant) {
+			return ConverterForInstant.toString((Instant) initialValue);
 		}
-		else if (initialValue instanceof Instant) {
-			converter = new ConverterForInstant((Instant) initialValue);
-		} else {
-			//catch all for all else
-			converter =  new ConverterForString(initialValue.toString());
+		if (initialValue instanceof Calendar) {
+			return ConverterForInstant.toString(((Calendar) initialValue).toInstant());
 		}
-		
-		return converter.getString();
+		// catch all for all else, including Numbers and Booleans
+		return initialValue.toString();
 	}
 	
 	public static Number getNumber(final Object initialValue) {
@@ -47,15 +51,17 @@ public class ConversionHandler {
 		if (initialValue instanceof Number) {
 			return (Number)initialValue;
 		}
-		
-		Converter converter = null;
 		if (initialValue instanceof Instant) {
-			converter = new ConverterForInstant((Instant) initialValue);
-		} else {
-			converter =  new ConverterForString(initialValue.toString());
+			return ((Instant) initialValue).toEpochMilli();
+		}
+		if (initialValue instanceof Calendar) {
+			return ((Calendar) initialValue).getTimeInMillis();
+		}
+		if (initialValue instanceof Boolean) {
+			// neither 'true' nor 'false' is a number
+			return null;
 		}
-		
-		return converter.getNumber();
+		return ConverterForString.toNumber(initialValue.toString());
 	}
 
 
@@ -34,6 +34,10 @@ public class ConverterForInstant implements Converter {
 
 	@Override
 	public String getString() {
+		return toString(value);
+	}
+
+	static String toString(Instant value) {
 		return value.atOffset(ZoneOffset.UTC).toString();
 	}
 }
\ No newline at end of file
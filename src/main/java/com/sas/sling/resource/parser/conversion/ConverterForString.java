@@ -32,6 +32,10 @@ public class ConverterForString implements Converter {
 
 	@Override
 	public Number getNumber() {
+		return toNumber(value);
+	}
+
+	static Number toNumber(String value) {
 		try {
 			return Integer.valueOf(value);
 		} catch (NumberFormatException nfe) {
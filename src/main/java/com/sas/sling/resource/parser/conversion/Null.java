@@ -22,6 +22,12 @@ public class Null extends Number implements CharSequence {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Shared instance, as a Null is never equal to anything there is no need
+	 * for more than one
+	 */
+	public static final Null INSTANCE = new Null();
+
 	@Override
 	public boolean equals(Object obj) {
 		return false;
@@ -13,6 +13,7 @@
  */
 package com.sas.sling.resource.parser.node;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -31,6 +32,7 @@ public class Node implements Iterable<Node> {
 	public Node rightNode;
 	public List<Node> children = Collections.emptyList();
 	public ComparisonOperator comparisonOp = null;
+	public Object value;
 
 	/**
 	 * creates a node which represents a String Literal value
@@ -41,6 +43,17 @@ public class Node implements Iterable<Node> {
 		this(value, type, null);
 	}
 
+	/**
+	 * creates a node which represents a value that was evaluated when the
+	 * statement was compiled
+	 * 
+	 * @param value
+	 */
+	public Node(Object value) {
+		this(value instanceof Object[] ? Arrays.toString((Object[]) value) : String.valueOf(value), NodeType.CONSTANT);
+		this.value = value;
+	}
+
 	public Node(NodeType type, List<Node> children) {
 		this(null, type, children);
 	}
@@ -14,5 +14,5 @@
 package com.sas.sling.resource.parser.node;
 
 public enum NodeType {
-	STRING, NUMBER, FUNCTION, AND, OR, COMPARISON, SELECTOR, PROPERTY, NULL
+	STRING, NUMBER, FUNCTION, AND, OR, COMPARISON, SELECTOR, PROPERTY, NULL, CONSTANT, LIST
 }
@@ -92,10 +92,60 @@ public class NodesFactory implements ParserConstants {
 		return new Node(value, type);
 	}
 
+	/**
+	 * Creates the same {@link Node} as {@link #createArgument(int, String)} from
+	 * a token that is identified by its offsets within the source. Only the
+	 * resulting value is copied out of the source.
+	 *
+	 * @param kind
+	 *            kind of the token
+	 * @param source
+	 *            text that is being parsed
+	 * @param start
+	 *            offset of the first character of the token
+	 * @param end
+	 *            offset after the last character of the token
+	 * @return node which represents the value of the token
+	 */
+	public Node createArgument(int kind, CharSequence source, int start, int end) {
+		switch (kind) {
+		case DOUBLE_QUOTED_STR:
+		case SINGLE_QUOTED_STR:
+			return new Node(source.subSequence(start + 1, end - 1).toString(), NodeType.STRING);
+		case NULL:
+			return new Node("null", NodeType.NULL);
+		case TRUE:
+			return new Node("true", NodeType.STRING);
+		case FALSE:
+			return new Node("false", NodeType.STRING);
+		default:
+		}
+		int from = start;
+		int to = end;
+		while (from < to && source.charAt(from) <= ' ') {
+			++from;
+		}
+		while (to > from && source.charAt(to - 1) <= ' ') {
+			--to;
+		}
+		return new Node(source.subSequence(from, to).toString(), kind == NUMBER ? NodeType.NUMBER : NodeType.STRING);
+	}
+
 	public Node createFunction(Node functionName, List<Node> children) {
 		return new Node(functionName.text, NodeType.FUNCTION, children);
 	}
 
+	/**
+	 * Creates a {@link Node} instance for a parenthesized list of values
+	 * 
+	 * @param children
+	 *            values of the list
+	 * @return node which represents the list
+	 */
+	public Node createList(List<Node> children) {
+		return new Node(",", NodeType.LIST, children);
+	}
+
 	public Node createPropertySelector(String image) {
 		return new Node(image, NodeType.PROPERTY);
 	}
@@ -14,16 +14,21 @@
 package com.sas.sling.resource.parser.predicates;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.sling.api.resource.Resource;
 
 import com.sas.sling.resource.parser.conversion.ConversionHandler;
 import com.sas.sling.resource.parser.conversion.Null;
+import com.sas.sling.resource.parser.provider.ConstantValue;
 
 /**
  * Predicates to handle comparisons that are defined in the filter language
@@ -42,6 +47,16 @@ public class ComparisonPredicates {
 	 */
 	public static Predicate<Resource> is(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "statement may not be null");
+		if (rhs instanceof ConstantValue) {
+			CharSequence rhValue = ConversionHandler.getString(((ConstantValue) rhs).getValue());
+			if (rhValue instanceof Null) {
+				// only the absence of a value is equal to null
+				return resource -> lhs.apply(resource) == null;
+			}
+			if (rhValue instanceof String) {
+				return isString(lhs, (String) rhValue);
+			}
+		}
 		return resource -> {
 			CharSequence lhValue = ConversionHandler.getString(lhs.apply(resource));
 			CharSequence rhValue = ConversionHandler.getString(rhs.apply(resource));
@@ -65,13 +80,28 @@ public class ComparisonPredicates {
 	 */
 	public static Predicate<Resource> like(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "value may not be null");
+		if (rhs instanceof ConstantValue) {
+			CharSequence rhValue = ConversionHandler.getString(((ConstantValue) rhs).getValue());
+			if (rhValue == null) {
+				return resource -> false;
+			}
+			try {
+				Predicate<CharSequence> matcher = RegexMatchers.compile(rhValue.toString());
+				return resource -> {
+					CharSequence lhValue = ConversionHandler.getString(lhs.apply(resource));
+					return lhValue != null && matcher.test(lhValue);
+				};
+			} catch (PatternSyntaxException e) {
+				// reported when evaluated, as for patterns that are not constant
+			}
+		}
 		return resource -> {
 			CharSequence lhValue = ConversionHandler.getString(lhs.apply(resource));
 			CharSequence rhValue = ConversionHandler.getString(rhs.apply(resource));
 			if (lhValue == null || rhValue == null) {
 				return false;
 			}
-			return Pattern.matches(rhValue.toString(), lhValue);
+			return RegexMatchers.cached(rhValue.toString()).test(lhValue);
 		};
 
 	}
@@ -86,22 +116,9 @@ public class ComparisonPredicates {
 	 *            Function which provides value for comparison
 	 * @return true if left hand value is greater than right hand value
 	 */
-	@SuppressWarnings("unchecked")
 	public static Predicate<Resource> gt(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "statement may not be null");
-		return resource -> {
-			Number lhValue = ConversionHandler.getNumber(lhs.apply(resource));
-			Number rhValue = ConversionHandler.getNumber(rhs.apply(resource));
-			if (lhValue == null || rhValue == null) {
-				return false;
-			}
-			lhValue = standardizeNumbers(lhValue, rhValue.getClass());
-			rhValue = standardizeNumbers(rhValue, lhValue.getClass());
-			if (lhValue instanceof Comparable) {
-				return ((Comparable<Number>) lhValue).compareTo(rhValue) > 0;
-			}
-			return false;
-		};
+		return compareNumbers(lhs, rhs, comparison -> comparison > 0);
 
 	}
 
@@ -115,22 +132,9 @@ public class ComparisonPredicates {
 	 *            Function which provides value for comparison
 	 * @return true if left hand value is greater than or equal to right hand value
 	 */
-	@SuppressWarnings("unchecked")
 	public static Predicate<Resource> gte(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "statement may not be null");
-		return resource -> {
-			Number lhValue = ConversionHandler.getNumber(lhs.apply(resource));
-			Number rhValue = ConversionHandler.getNumber(rhs.apply(resource));
-			if (lhValue == null || rhValue == null) {
-				return false;
-			}
-			lhValue = standardizeNumbers(lhValue, rhValue.getClass());
-			rhValue = standardizeNumbers(rhValue, lhValue.getClass());
-			if (lhValue instanceof Comparable) {
-				return ((Comparable<Number>) lhValue).compareTo(rhValue) >= 0;
-			}
-			return false;
-		};
+		return compareNumbers(lhs, rhs, comparison -> comparison >= 0);
 	}
 
 	/**
@@ -143,22 +147,9 @@ public class ComparisonPredicates {
 	 *            Function which provides value for comparison
 	 * @return true if left hand value is less than right hand value
 	 */
-	@SuppressWarnings("unchecked")
 	public static Predicate<Resource> lt(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "type value may not be null");
-		return resource -> {
-			Number lhValue = ConversionHandler.getNumber(lhs.apply(resource));
-			Number rhValue = ConversionHandler.getNumber(rhs.apply(resource));
-			if (lhValue == null || rhValue == null) {
-				return false;
-			}
-			lhValue = standardizeNumbers(lhValue, rhValue.getClass());
-			rhValue = standardizeNumbers(rhValue, lhValue.getClass());
-			if (lhValue instanceof Comparable) {
-				return ((Comparable<Number>) lhValue).compareTo(rhValue) < 0;
-			}
-			return false;
-		};
+		return compareNumbers(lhs, rhs, comparison -> comparison < 0);
 
 	}
 
@@ -172,22 +163,9 @@ public class ComparisonPredicates {
 	 *            Function which provides value for comparison
 	 * @return true if left hand value is less than or equal to right hand value
 	 */
-	@SuppressWarnings("unchecked")
 	public static Predicate<Resource> lte(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "statement may not be null");
-		return resource -> {
-			Number lhValue = ConversionHandler.getNumber(lhs.apply(resource));
-			Number rhValue = ConversionHandler.getNumber(rhs.apply(resource));
-			if (lhValue == null || rhValue == null) {
-				return false;
-			}
-			lhValue = standardizeNumbers(lhValue, rhValue.getClass());
-			rhValue = standardizeNumbers(rhValue, lhValue.getClass());
-			if (lhValue instanceof Comparable) {
-				return ((Comparable<Number>) lhValue).compareTo(rhValue) <= 0;
-			}
-			return false;
-		};
+		return compareNumbers(lhs, rhs, comparison -> comparison <= 0);
 	}
 
 	/**
@@ -201,28 +179,23 @@ public class ComparisonPredicates {
 	 */
 	public static Predicate<Resource> contains(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "statement may not be null");
+		if (rhs instanceof ConstantValue) {
+			String[] rhValues = adaptToArray(((ConstantValue) rhs).getValue());
+			if (rhValues == null) {
+				return resource -> false;
+			}
+			return resource -> {
+				String[] lhValues = adaptToArray(lhs.apply(resource));
+				return lhValues != null && lhValues.length >= rhValues.length && containsAll(lhValues, rhValues);
+			};
+		}
 		return resource -> {
 			String[] lhValues = adaptToArray(lhs.apply(resource));
 			String[] rhValues = adaptToArray(rhs.apply(resource));
-			if (lhValues == null || rhValues == null) {
-				return false;
-			}
-			if (lhValues.length < rhValues.length) {
+			if (lhValues == null || rhValues == null || lhValues.length < rhValues.length) {
 				return false;
 			}
-			for (String rhValue : rhValues) {
-				innerLoop: {
-					for (String lhValue : lhValues) {
-						if (lhValue.equals(rhValue)) {
-							break innerLoop;
-						}
-					}
-					return false;
-				}
-			}
-			// reaches here only if every rhValue was successfully found in
-			// lhValues
-			return true;
+			return containsAll(lhValues, rhValues);
 		};
 	}
 
@@ -236,6 +209,24 @@ public class ComparisonPredicates {
 	 * @return true if the left hand values matches any of the right hand values
 	 */
 	public static Predicate<Resource> containsAny(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
+		if (rhs instanceof ConstantValue) {
+			Set<String> rhValues = toSet(adaptToArray(((ConstantValue) rhs).getValue()));
+			if (rhValues == null) {
+				return resource -> false;
+			}
+			return resource -> {
+				String[] lhValues = adaptToArray(lhs.apply(resource));
+				if (lhValues == null) {
+					return false;
+				}
+				for (String lhValue : lhValues) {
+					if (rhValues.contains(lhValue)) {
+						return true;
+					}
+				}
+				return false;
+			};
+		}
 		return resource -> {
 			String[] lhValues = adaptToArray(lhs.apply(resource));
 			String[] rhValues = adaptToArray(rhs.apply(resource));
@@ -243,10 +234,8 @@ public class ComparisonPredicates {
 				return false;
 			}
 			for (String rhValue : rhValues) {
-				for (String lhValue : lhValues) {
-					if (lhValue.equals(rhValue)) {
-						return true;
-					}
+				if (indexOf(lhValues, rhValue) >= 0) {
+					return true;
 				}
 			}
 			return false;
@@ -264,28 +253,131 @@ public class ComparisonPredicates {
 	 */
 	public static Predicate<Resource> in(Function<Resource, Object> lhs, Function<Resource, Object> rhs) {
 		Objects.requireNonNull(rhs, "statement may not be null");
+		if (rhs instanceof ConstantValue) {
+			Set<String> rhValues = toSet(adaptToArray(((ConstantValue) rhs).getValue()));
+			if (rhValues == null) {
+				return resource -> false;
+			}
+			return resource -> {
+				String[] lhValues = adaptToArray(lhs.apply(resource));
+				if (lhValues == null) {
+					return false;
+				}
+				for (String lhValue : lhValues) {
+					if (!rhValues.contains(lhValue)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		}
 		return resource -> {
 			String[] lhValues = adaptToArray(lhs.apply(resource));
 			String[] rhValues = adaptToArray(rhs.apply(resource));
 			if (lhValues == null || rhValues == null) {
 				return false;
 			}
-			for (String lhValue : lhValues) {
-				innerLoop: {
-					for (String rhValue : rhValues) {
-						if (rhValue.equals(lhValue)) {
-							break innerLoop;
-						}
+			// true only if every lhValue is found in rhValues
+			return containsAll(rhValues, lhValues);
+		};
+	}
+
+	/*
+	 * Equality with a constant String, without converting the common left hand
+	 * values to a String. An integral value is equal to the String if the
+	 * String is the decimal representation of that value.
+	 */
+	private static Predicate<Resource> isString(Function<Resource, Object> lhs, String rhValue) {
+		Long integral = null;
+		try {
+			long parsed = Long.parseLong(rhValue);
+			if (Long.toString(parsed).equals(rhValue)) {
+				integral = parsed;
+			}
+		} catch (NumberFormatException e) {
+			// never equal to an integral value
+		}
+		final boolean isIntegral = integral != null;
+		final long integralValue = isIntegral ? integral : 0;
+		return resource -> {
+			Object lhValue = lhs.apply(resource);
+			if (lhValue == null) {
+				return false;
+			}
+			if (lhValue instanceof CharSequence) {
+				return lhValue.equals(rhValue);
+			}
+			if (lhValue instanceof Number && NumericBound.isIntegral((Number) lhValue)) {
+				return isIntegral && ((Number) lhValue).longValue() == integralValue;
+			}
+			if (lhValue instanceof Boolean) {
+				// Boolean.toString provides one of two constants
+				return lhValue.toString().equals(rhValue);
+			}
+			return ConversionHandler.getString(lhValue).equals(rhValue);
+		};
+	}
+
+	/*
+	 * A constant right hand value is prepared once, so the common left hand values
+	 * are compared as primitives
+	 */
+	private static Predicate<Resource> compareNumbers(Function<Resource, Object> lhs, Function<Resource, Object> rhs,
+			IntPredicate expected) {
+		NumericBound bound = null;
+		if (rhs instanceof ConstantValue) {
+			Number rhValue = ConversionHandler.getNumber(((ConstantValue) rhs).getValue());
+			if (rhValue == null) {
+				return resource -> false;
+			}
+			bound = NumericBound.of(rhValue);
+		}
+		if (bound != null) {
+			final NumericBound rhValue = bound;
+			return resource -> {
+				Object value = lhs.apply(resource);
+				if (value instanceof Calendar) {
+					// compared as the milliseconds without boxing them
+					int comparison = rhValue.compareFrom(((Calendar) value).getTimeInMillis());
+					if (comparison != NumericBound.INCOMPARABLE) {
+						return expected.test(comparison);
 					}
+				}
+				Number lhValue = ConversionHandler.getNumber(value);
+				if (lhValue == null) {
 					return false;
 				}
+				int comparison = rhValue.compareFrom(lhValue);
+				if (comparison == NumericBound.INCOMPARABLE) {
+					comparison = compare(lhValue, rhValue.getValue());
+				}
+				return comparison != NumericBound.INCOMPARABLE && expected.test(comparison);
+			};
+		}
+		return resource -> {
+			Number lhValue = ConversionHandler.getNumber(lhs.apply(resource));
+			Number rhValue = ConversionHandler.getNumber(rhs.apply(resource));
+			if (lhValue == null || rhValue == null) {
+				return false;
 			}
-			// reaches here only if every lhValue was successfully found in
-			// rhValues
-			return true;
+			int comparison = compare(lhValue, rhValue);
+			return comparison != NumericBound.INCOMPARABLE && expected.test(comparison);
 		};
 	}
 
+	/*
+	 * Values are converted to a common type as the basis of comparison
+	 */
+	@SuppressWarnings("unchecked")
+	private static int compare(Number lhValue, Number rhValue) {
+		lhValue = standardizeNumbers(lhValue, rhValue.getClass());
+		rhValue = standardizeNumbers(rhValue, lhValue.getClass());
+		if (lhValue instanceof Comparable) {
+			return Integer.signum(((Comparable<Number>) lhValue).compareTo(rhValue));
+		}
+		return NumericBound.INCOMPARABLE;
+	}
+
 	private static Number standardizeNumbers(Number value, Class<? extends Number> klass) {
 		if (value.getClass() == klass || value instanceof BigDecimal) {
 			return value;
@@ -300,15 +392,64 @@ public class ComparisonPredicates {
 		if (arr instanceof String[] || arr == null) {
 			return (String[]) arr;
 		}
-		ArrayList<CharSequence> response = new ArrayList<>();
 		if (arr.getClass().isArray()) {
-			for (Object thing : (Object[]) arr) {
-				response.add(ConversionHandler.getString(thing));
+			Object[] things = (Object[]) arr;
+			String[] response = new String[things.length];
+			for (int i = 0; i < things.length; ++i) {
+				response[i] = toString(things[i]);
+			}
+			return response;
+		}
+		return new String[] { toString(arr) };
+	}
+
+	/*
+	 * null for values which represent the absence of a value, these are never
+	 * equal to anything
+	 */
+	private static String toString(Object value) {
+		CharSequence string = ConversionHandler.getString(value);
+		return string == null || string instanceof Null ? null : string.toString();
+	}
+
+	/*
+	 * immutable set of the values for constant lists, so that each value is looked
+	 * up in constant time
+	 */
+	private static Set<String> toSet(String[] values) {
+		if (values == null) {
+			return null;
+		}
+		Set<String> set = new HashSet<>(values.length * 2);
+		for (String value : values) {
+			if (value != null) {
+				set.add(value);
+			}
+		}
+		return Collections.unmodifiableSet(set);
+	}
+
+	/*
+	 * true if every one of the values is found in the container
+	 */
+	private static boolean containsAll(String[] container, String[] values) {
+		for (String value : values) {
+			if (indexOf(container, value) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(String[] values, String value) {
+		if (value != null) {
+			for (int i = 0; i < values.length; ++i) {
+				if (value.equals(values[i])) {
+					return i;
+				}
 			}
-		} else {
-			response.add(ConversionHandler.getString(arr));
 		}
-		return response.toArray(new String[] {});
+		return -1;
 	}
 
 }
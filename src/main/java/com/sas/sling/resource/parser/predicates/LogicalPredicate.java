@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.predicates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Predicate which combines its operands with 'and' or 'or'. The operands are
+ * evaluated in order, up to the first operand which decides the result.
+ *
+ * Operands which are themselves a LogicalPredicate with the same operator are
+ * merged into this one, so that a long series of 'and' or 'or' conditions is
+ * evaluated by a single loop rather than by a chain of nested predicates.
+ *
+ * @param <T>
+ *            type of the tested value
+ */
+public final class LogicalPredicate<T> implements Predicate<T> {
+
+	public enum Operator {
+		AND, OR
+	}
+
+	private final Operator operator;
+
+	// result of an operand which decides the result of the predicate
+	private final boolean decisive;
+
+	private final Predicate<? super T>[] operands;
+
+	private LogicalPredicate(Operator operator, Predicate<? super T>[] operands) {
+		this.operator = operator;
+		this.decisive = operator == Operator.OR;
+		this.operands = operands;
+	}
+
+	/**
+	 * @param operands
+	 *            predicates in the order of evaluation
+	 * @return predicate which is true if every operand is true, true if there
+	 *         are none
+	 */
+	@SafeVarargs
+	public static <T> Predicate<T> allOf(Predicate<? super T>... operands) {
+		return of(Operator.AND, operands);
+	}
+
+	/**
+	 * @param operands
+	 *            predicates in the order of evaluation
+	 * @return predicate which is true if any operand is true, false if there
+	 *         are none
+	 */
+	@SafeVarargs
+	public static <T> Predicate<T> anyOf(Predicate<? super T>... operands) {
+		return of(Operator.OR, operands);
+	}
+
+	@SafeVarargs
+	private static <T> Predicate<T> of(Operator operator, Predicate<? super T>... operands) {
+		List<Predicate<? super T>> flattened = new ArrayList<>(operands.length);
+		for (Predicate<? super T> operand : operands) {
+			Objects.requireNonNull(operand, "predicate may not be null");
+			if (operand instanceof LogicalPredicate && ((LogicalPredicate<?>) operand).operator == operator) {
+				for (Predicate<?> nested : ((LogicalPredicate<?>) operand).operands) {
+					@SuppressWarnings("unchecked")
+					Predicate<? super T> typed = (Predicate<? super T>) nested;
+					flattened.add(typed);
+				}
+			} else {
+				flattened.add(operand);
+			}
+		}
+		@SuppressWarnings("unchecked")
+		Predicate<? super T>[] array = flattened.toArray(new Predicate[flattened.size()]);
+		return new LogicalPredicate<>(operator, array);
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	@Override
+	public boolean test(T value) {
+		for (Predicate<? super T> operand : operands) {
+			if (operand.test(value) == decisive) {
+				return decisive;
+			}
+		}
+		return !decisive;
+	}
+
+	/**
+	 * Adds the other predicate as the last operand of a conjunction, instead of
+	 * wrapping this predicate
+	 */
+	@Override
+	public Predicate<T> and(Predicate<? super T> other) {
+		return of(Operator.AND, this, other);
+	}
+
+	/**
+	 * Adds the other predicate as the last operand of a disjunction, instead of
+	 * wrapping this predicate
+	 */
+	@Override
+	public Predicate<T> or(Predicate<? super T> other) {
+		return of(Operator.OR, this, other);
+	}
+
+}
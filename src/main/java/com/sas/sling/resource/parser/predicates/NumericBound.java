@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.predicates;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Constant right hand value of a numeric comparison, prepared so that the
+ * common left hand values can be compared as long or double primitives.
+ * 
+ * The results are the same as comparing the values as BigDecimals, which is
+ * what happens when the types of the values differ. A double is converted to a
+ * BigDecimal through its String representation; as that conversion preserves
+ * the order of finite values, a primitive comparison gives the same result as
+ * long as every value involved is exactly representable as a double.
+ * 
+ */
+final class NumericBound {
+
+	/**
+	 * returned when the value can not be compared without the generic conversion
+	 */
+	static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+	// 2^53, every long of at most this magnitude is exactly representable as a double
+	private static final long EXACT_DOUBLE_RANGE = 1L << 53;
+
+	private final Number value;
+
+	private final boolean isDouble;
+
+	// the value as a long, or its floor if hasFraction is set
+	private final boolean longUsable;
+
+	private final long longValue;
+
+	private final boolean hasFraction;
+
+	// the value as a double, if it represents the value without loss
+	private final boolean doubleUsable;
+
+	private final double doubleValue;
+
+	private NumericBound(Number value, boolean longUsable, long longValue, boolean hasFraction,
+			boolean doubleUsable, double doubleValue) {
+		this.value = value;
+		this.isDouble = value instanceof Double;
+		this.longUsable = longUsable;
+		this.longValue = longValue;
+		this.hasFraction = hasFraction;
+		this.doubleUsable = doubleUsable;
+		this.doubleValue = doubleValue;
+	}
+
+	/**
+	 * @param value
+	 *            constant right hand value
+	 * @return prepared value, or null if there is no primitive comparison for the
+	 *         type of the value
+	 */
+	static NumericBound of(Number value) {
+		if (isIntegral(value)) {
+			long longValue = value.longValue();
+			return new NumericBound(value, true, longValue, false, Math.abs(longValue) <= EXACT_DOUBLE_RANGE,
+					longValue);
+		}
+		if (value instanceof Double) {
+			double doubleValue = value.doubleValue();
+			if (!Double.isFinite(doubleValue)) {
+				return null;
+			}
+			return new NumericBound(value, false, 0, false, true, doubleValue);
+		}
+		if (value instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) value;
+			BigDecimal floor = decimal.setScale(0, RoundingMode.FLOOR);
+			boolean longUsable = floor.toBigInteger().bitLength() < 64;
+			double doubleValue = decimal.doubleValue();
+			boolean doubleUsable = Double.isFinite(doubleValue)
+					&& BigDecimal.valueOf(doubleValue).compareTo(decimal) == 0;
+			return new NumericBound(value, longUsable, longUsable ? floor.longValue() : 0,
+					floor.compareTo(decimal) != 0, doubleUsable, doubleValue);
+		}
+		return null;
+	}
+
+	Number getValue() {
+		return value;
+	}
+
+	/**
+	 * @param lhValue
+	 *            left hand value of the comparison
+	 * @return negative, zero or positive if the left hand value is less than,
+	 *         equal to or greater than this value, or {@link #INCOMPARABLE}
+	 */
+	int compareFrom(Number lhValue) {
+		if (isIntegral(lhValue)) {
+			return compareFrom(lhValue.longValue());
+		} else if (lhValue instanceof Double) {
+			double lhDouble = lhValue.doubleValue();
+			if (isDouble) {
+				// both are Doubles, which are compared as they are
+				return Double.compare(lhDouble, doubleValue);
+			}
+			if (doubleUsable && Double.isFinite(lhDouble)) {
+				return compare(lhDouble, doubleValue);
+			}
+		}
+		return INCOMPARABLE;
+	}
+
+	/**
+	 * @param lhLong
+	 *            left hand value of the comparison
+	 * @return negative, zero or positive if the left hand value is less than,
+	 *         equal to or greater than this value, or {@link #INCOMPARABLE}
+	 */
+	int compareFrom(long lhLong) {
+		if (longUsable) {
+			if (hasFraction) {
+				return lhLong > longValue ? 1 : -1;
+			}
+			return Long.compare(lhLong, longValue);
+		}
+		if (isDouble && Math.abs(lhLong) <= EXACT_DOUBLE_RANGE) {
+			return compare(lhLong, doubleValue);
+		}
+		return INCOMPARABLE;
+	}
+
+	/*
+	 * unlike Double.compare, 0.0 and -0.0 are equal as they are for BigDecimal
+	 */
+	private static int compare(double lhValue, double rhValue) {
+		return lhValue < rhValue ? -1 : (lhValue > rhValue ? 1 : 0);
+	}
+
+	static boolean isIntegral(Number value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+	}
+
+}
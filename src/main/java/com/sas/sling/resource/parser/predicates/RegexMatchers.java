@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.predicates;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Creates matchers which behave like {@link Pattern#matches(String, CharSequence)}.
+ * 
+ * Patterns which consist of a literal, optionally preceded or followed by
+ * '.*', are matched with String operations instead of the regular expression.
+ * As '.' does not match line terminators, values which contain one are still
+ * matched by the regular expression.
+ * 
+ */
+final class RegexMatchers {
+
+	private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+	private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+
+	private static final int CACHE_SIZE = 256;
+
+	// matchers for patterns that are only known at evaluation time
+	private static final Map<String, Predicate<CharSequence>> CACHE = Collections
+			.synchronizedMap(new LinkedHashMap<String, Predicate<CharSequence>>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Predicate<CharSequence>> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			});
+
+	private RegexMatchers() {
+	}
+
+	/**
+	 * Provides the matcher for the regular expression from a bounded cache
+	 * 
+	 * @param regex
+	 *            regular expression
+	 * @return matcher for the regular expression
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is invalid
+	 */
+	static Predicate<CharSequence> cached(String regex) {
+		Predicate<CharSequence> matcher = CACHE.get(regex);
+		if (matcher == null) {
+			matcher = compile(regex);
+			CACHE.put(regex, matcher);
+		}
+		return matcher;
+	}
+
+	/**
+	 * @param regex
+	 *            regular expression
+	 * @return matcher for the regular expression
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is invalid
+	 */
+	static Predicate<CharSequence> compile(String regex) {
+		Pattern pattern = Pattern.compile(regex);
+		boolean leading = regex.startsWith(".*");
+		int from = leading ? 2 : 0;
+		int to = regex.length();
+		boolean trailing = to - 2 >= from && regex.endsWith(".*") && !isEscaped(regex, to - 2);
+		if (trailing) {
+			to -= 2;
+		}
+		String literal = literal(regex, from, to);
+		if (literal == null) {
+			return value -> pattern.matcher(value).matches();
+		}
+		if (!leading && !trailing) {
+			return value -> literal.contentEquals(value);
+		}
+		return value -> {
+			String text = value.toString();
+			if (containsLineTerminator(text)) {
+				return pattern.matcher(text).matches();
+			}
+			if (leading && trailing) {
+				return text.contains(literal);
+			}
+			return leading ? text.endsWith(literal) : text.startsWith(literal);
+		};
+	}
+
+	/*
+	 * the text which the section of the pattern matches or null if the section is
+	 * not a literal
+	 */
+	private static String literal(String regex, int from, int to) {
+		StringBuilder literal = new StringBuilder(to - from);
+		for (int i = from; i < to; ++i) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				if (++i == to || Character.isLetterOrDigit(regex.charAt(i))) {
+					return null;
+				}
+				literal.append(regex.charAt(i));
+			} else if (METACHARACTERS.indexOf(c) >= 0) {
+				return null;
+			} else {
+				literal.append(c);
+			}
+		}
+		return literal.toString();
+	}
+
+	private static boolean isEscaped(String regex, int index) {
+		int backslashes = 0;
+		while (index - backslashes > 0 && regex.charAt(index - backslashes - 1) == '\\') {
+			++backslashes;
+		}
+		return backslashes % 2 == 1;
+	}
+
+	private static boolean containsLineTerminator(String text) {
+		for (int i = 0; i < text.length(); ++i) {
+			if (LINE_TERMINATORS.indexOf(text.charAt(i)) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.provider;
+
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * Function which provides the same value for every resource. Used for literals
+ * and for values which were evaluated when the statement was compiled, so that
+ * comparisons can recognise a constant operand and prepare for it.
+ *
+ */
+public final class ConstantValue implements Function<Resource, Object> {
+
+	private final Object value;
+
+	public ConstantValue(Object value) {
+		this.value = value;
+	}
+
+	@Override
+	public Object apply(Resource resource) {
+		return value;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+}
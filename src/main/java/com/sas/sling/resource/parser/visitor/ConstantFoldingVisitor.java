@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodeType;
+import com.sas.sling.resource.parser.node.Visitor;
+import com.sas.sling.resource.parser.predicates.ComparisonPredicateFactory;
+
+/**
+ * Rewrites a statement so that everything which does not depend on the resource
+ * is evaluated once, when the statement is compiled.
+ * 
+ * A call to date() with literal arguments is replaced by the resulting value
+ * and a comparison between two literals by its result, which in turn
+ * simplifies the enclosing And and Or statements. A list of literals is
+ * replaced by an array of its values. date() without arguments,
+ * name(), path() and registered functions are left in place. An expression
+ * that fails to evaluate is left in place as well, so the failure still occurs
+ * when the statement is evaluated.
+ * 
+ * The visited tree is not modified, changed nodes are replaced by new ones.
+ * 
+ */
+public class ConstantFoldingVisitor implements Visitor<Node, Void> {
+
+	private final ValueVisitor valueVisitor;
+
+	public ConstantFoldingVisitor(ValueVisitor valueVisitor) {
+		this.valueVisitor = valueVisitor;
+	}
+
+	@Override
+	public Node visit(Node node, Void param) {
+		switch (node.type) {
+		case AND:
+			return foldLogic(node, false);
+		case OR:
+			return foldLogic(node, true);
+		case COMPARISON:
+			return foldComparison(node);
+		case FUNCTION:
+			return foldFunction(node);
+		case LIST:
+			return foldList(node);
+		default:
+			return node;
+		}
+	}
+
+	/**
+	 * @return true if the node represents a value which is known at compile time
+	 */
+	public static boolean isConstant(Node node) {
+		switch (node.type) {
+		case STRING:
+		case NUMBER:
+		case NULL:
+		case CONSTANT:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/*
+	 * a constant operand equal to the dominant value decides the whole statement,
+	 * the other constant operands have no effect and are dropped
+	 */
+	private Node foldLogic(Node node, boolean dominant) {
+		List<Node> children = new ArrayList<>(node.children.size());
+		boolean changed = false;
+		for (Node child : node.children) {
+			Node folded = visit(child, null);
+			// Node.equals does not tell comparisons apart, so they are compared by identity
+			changed |= folded != child;
+			if (folded.type != NodeType.CONSTANT) {
+				children.add(folded);
+			} else if (folded.value.equals(dominant)) {
+				return folded;
+			}
+		}
+		if (children.isEmpty()) {
+			return new Node(!dominant);
+		}
+		if (children.size() == 1) {
+			return children.get(0);
+		}
+		return changed || children.size() != node.children.size() ? node.withChildren(children) : node;
+	}
+
+	private Node foldComparison(Node node) {
+		Node leftNode = visit(node.leftNode, null);
+		Node rightNode = visit(node.rightNode, null);
+		if (isConstant(leftNode) && isConstant(rightNode)) {
+			Predicate<Resource> predicate = ComparisonPredicateFactory.toPredicate(node.comparisonOp,
+					leftNode.accept(valueVisitor, null), rightNode.accept(valueVisitor, null));
+			try {
+				return new Node(predicate.test(null));
+			} catch (RuntimeException e) {
+				// evaluated per resource, as it was written
+			}
+		}
+		if (leftNode == node.leftNode && rightNode == node.rightNode) {
+			return node;
+		}
+		return new Node(node.comparisonOp, leftNode, rightNode);
+	}
+
+	private Node foldList(Node node) {
+		List<Node> children = new ArrayList<>(node.children.size());
+		boolean constantValues = true;
+		boolean changed = false;
+		for (Node child : node.children) {
+			Node folded = visit(child, null);
+			constantValues &= isConstant(folded);
+			changed |= folded != child;
+			children.add(folded);
+		}
+		if (constantValues) {
+			Object[] values = new Object[children.size()];
+			for (int i = 0; i < values.length; ++i) {
+				values[i] = children.get(i).accept(valueVisitor, null).apply(null);
+			}
+			return new Node(values);
+		}
+		return changed ? node.withChildren(children) : node;
+	}
+
+	private Node foldFunction(Node node) {
+		List<Node> children = new ArrayList<>(node.children.size());
+		boolean constantArguments = true;
+		boolean changed = false;
+		for (Node child : node.children) {
+			Node folded = visit(child, null);
+			constantArguments &= isConstant(folded);
+			changed |= folded != child;
+			children.add(folded);
+		}
+		Node function = changed ? node.withChildren(children) : node;
+		if ("date".equals(node.text) && !children.isEmpty() && constantArguments) {
+			try {
+				return new Node(function.accept(valueVisitor, null).apply(null));
+			} catch (RuntimeException e) {
+				// evaluated per resource, as it was written
+			}
+		}
+		return function;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.visitor;
+
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.Visitor;
+
+/**
+ * Estimates the relative cost of evaluating a statement against a single
+ * resource. The values have no unit, they only order the operands of a logical
+ * operation so that the cheap ones are evaluated first.
+ *
+ * Information held by the resource object itself, such as the name or the
+ * path, is the cheapest to obtain. Properties of the resource come next, then
+ * properties of child resources, which first have to be resolved. Regular
+ * expressions and array comparisons add to the cost of the values they
+ * compare.
+ *
+ */
+public class CostVisitor implements Visitor<Integer, Void> {
+
+	@Override
+	public Integer visit(Node node, Void param) {
+		switch (node.type) {
+		case AND:
+		case OR:
+		case LIST:
+			int sum = 0;
+			for (Node child : node.children) {
+				sum += visit(child, null);
+			}
+			return sum;
+		case COMPARISON:
+			return visit(node.leftNode, null) + visit(node.rightNode, null) + operatorCost(node);
+		case PROPERTY:
+			return node.text.indexOf('/') >= 0 ? 8 : 4;
+		case FUNCTION:
+			return functionCost(node);
+		default:
+			// literal values
+			return 0;
+		}
+	}
+
+	private int functionCost(Node node) {
+		int cost;
+		switch (node.text) {
+		case "name":
+		case "path":
+			cost = 1;
+			break;
+		case "date":
+			cost = 2;
+			break;
+		default:
+			// nothing is known about registered functions
+			cost = 6;
+		}
+		for (Node child : node.children) {
+			cost += visit(child, null);
+		}
+		return cost;
+	}
+
+	private int operatorCost(Node node) {
+		switch (node.comparisonOp) {
+		case EQUAL:
+		case NOT_EQUAL:
+			return 1;
+		case GREATER_THAN:
+		case GREATER_THAN_OR_EQUAL:
+		case LESS_THAN:
+		case LESS_THAN_OR_EQUAL:
+			return 2;
+		case LIKE:
+		case LIKE_NOT:
+			return 10;
+		default:
+			// array based comparisons
+			return 3;
+		}
+	}
+
+}
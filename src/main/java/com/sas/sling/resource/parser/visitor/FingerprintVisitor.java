@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.visitor;
+
+import java.util.StringJoiner;
+
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodeType;
+import com.sas.sling.resource.parser.node.Visitor;
+import com.sas.sling.resource.parser.predicates.ComparisonOperator;
+
+/**
+ * Describes the shape of a statement, so that statements which only differ in
+ * their literal values are recorded together. Literals are replaced by '?', a
+ * list of literals by a single '(?)', and the alternative spellings of an
+ * operator and the whitespace between the tokens are normalized.
+ *
+ * <pre>
+ * [jcr:content/jcr:title] is 'English' and [count] in (1, 2, 3)
+ * </pre>
+ * 
+ * becomes
+ * 
+ * <pre>
+ * [jcr:content/jcr:title] == ? and [count] in (?)
+ * </pre>
+ */
+public class FingerprintVisitor implements Visitor<String, Void> {
+
+	/**
+	 * @param node
+	 *            statement as it was parsed
+	 * @return fingerprint of the statement
+	 */
+	public static String fingerprint(Node node) {
+		return node.accept(new FingerprintVisitor(), null);
+	}
+
+	@Override
+	public String visit(Node node, Void param) {
+		switch (node.type) {
+		case AND:
+			return join(node, " and ", "", "", NodeType.OR);
+		case OR:
+			return join(node, " or ", "", "", null);
+		case COMPARISON:
+			return visit(node.leftNode, null) + ' ' + operator(node.comparisonOp) + ' ' + visit(node.rightNode, null);
+		case PROPERTY:
+			return '[' + node.text + ']';
+		case FUNCTION:
+			return join(node, ", ", node.text + '(', ")", null);
+		case LIST:
+			if (node.children.stream().allMatch(ConstantFoldingVisitor::isConstant)) {
+				return "(?)";
+			}
+			return join(node, ", ", "(", ")", null);
+		case NULL:
+			return "null";
+		default:
+			// strings, numbers and folded constants
+			return "?";
+		}
+	}
+
+	private String join(Node node, String delimiter, String prefix, String suffix, NodeType parenthesized) {
+		StringJoiner joiner = new StringJoiner(delimiter, prefix, suffix);
+		for (Node child : node.children) {
+			String text = visit(child, null);
+			joiner.add(child.type == parenthesized ? '(' + text + ')' : text);
+		}
+		return joiner.toString();
+	}
+
+	private static String operator(ComparisonOperator operator) {
+		switch (operator) {
+		case EQUAL:
+			return "==";
+		case NOT_EQUAL:
+			return "!=";
+		case GREATER_THAN:
+			return ">";
+		case GREATER_THAN_OR_EQUAL:
+			return ">=";
+		case LESS_THAN:
+			return "<";
+		case LESS_THAN_OR_EQUAL:
+			return "<=";
+		case LIKE:
+			return "like";
+		case LIKE_NOT:
+			return "not like";
+		case CONTAINS:
+			return "contains";
+		case CONTAINS_NOT:
+			return "contains not";
+		case CONTAINS_ANY:
+			return "contains any";
+		case CONTAINS_NOT_ANY:
+			return "contains not any";
+		case IN:
+			return "in";
+		case NOT_IN:
+			return "not in";
+		default:
+			return operator.name();
+		}
+	}
+
+}
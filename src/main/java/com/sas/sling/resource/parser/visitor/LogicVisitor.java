@@ -13,14 +13,22 @@
  */
 package com.sas.sling.resource.parser.visitor;
 
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.apache.sling.api.resource.Resource;
 
+import com.sas.sling.resource.parser.CompiledQuery;
+import com.sas.sling.resource.parser.Projection;
 import com.sas.sling.resource.parser.node.Node;
 import com.sas.sling.resource.parser.node.Visitor;
 import com.sas.sling.resource.parser.predicates.ComparisonPredicateFactory;
+import com.sas.sling.resource.parser.predicates.LogicalPredicate;
 
 /**
  * Visitor implementation that handles the high level handling of logic between
@@ -32,7 +40,40 @@ import com.sas.sling.resource.parser.predicates.ComparisonPredicateFactory;
  */
 public class LogicVisitor implements Visitor<Predicate<Resource>, Void> {
 
-	private ValueVisitor valueVisitor = new ValueVisitor();
+	private ValueVisitor valueVisitor;
+
+	private PathPruningVisitor pathPruningVisitor = new PathPruningVisitor();
+
+	private CostVisitor costVisitor = new CostVisitor();
+
+	private ConstantFoldingVisitor constantFoldingVisitor;
+
+	public LogicVisitor() {
+		this(new ValueVisitor());
+	}
+
+	private LogicVisitor(ValueVisitor valueVisitor) {
+		this.valueVisitor = valueVisitor;
+		this.constantFoldingVisitor = new ConstantFoldingVisitor(valueVisitor);
+	}
+
+	/**
+	 * Compiles the statement represented by the node into a predicate, along
+	 * with a traversal control derived from the conditions on the resource path.
+	 * Parts of the statement which do not depend on the resource are evaluated
+	 * beforehand, and the properties it reads are collected into a projection.
+	 * 
+	 * @param rootNode
+	 *            root of the parsed statement
+	 * @return compiled statement
+	 */
+	public CompiledQuery compile(Node rootNode) {
+		Node folded = rootNode.accept(constantFoldingVisitor, null);
+		Projection projection = ProjectionVisitor.project(folded);
+		LogicVisitor compiler = new LogicVisitor(valueVisitor.project(projection));
+		return new CompiledQuery(folded.accept(compiler, null), folded.accept(pathPruningVisitor, null), projection,
+				FingerprintVisitor.fingerprint(rootNode), rootNode);
+	}
 
 	@Override
 	public Predicate<Resource> visit(Node node, Void locator) {
@@ -43,39 +84,51 @@ public class LogicVisitor implements Visitor<Predicate<Resource>, Void> {
 			return createOrPredicate(node);
 		case COMPARISON:
 			return createComparisonPredicate(node);
+		case CONSTANT:
+			boolean result = Boolean.TRUE.equals(node.value);
+			return resource -> result;
 		default:
 			// no action
 		}
 		return null;
 	}
 
+	/**
+	 * Returns a predicate which consists of a series of And statements, evaluated
+	 * in order of increasing cost
+	 * 
+	 * @param node
+	 * @return
+	 */
 	private Predicate<Resource> createAndPredicate(Node node) {
-		return node.children.stream().map(child -> {
-			return visit(child, null);
-		}).reduce(null, (predicate, accumulator) -> {
-			if (predicate == null) {
-				return accumulator;
-			}
-			return accumulator.and(predicate);
-		});
+		return LogicalPredicate.allOf(operands(node));
 	}
 
 	/**
-	 * Returns a predicate which consists of a series of Or statements
+	 * Returns a predicate which consists of a series of Or statements, evaluated
+	 * in order of increasing cost
 	 * 
 	 * @param node
-	 * @param param
 	 * @return
 	 */
 	private Predicate<Resource> createOrPredicate(Node node) {
-		return node.children.stream().map(child -> {
-			return visit(child, null);
-		}).reduce(null, (predicate, accumulator) -> {
-			if (predicate == null) {
-				return accumulator;
-			}
-			return accumulator.or(predicate);
-		});
+		return LogicalPredicate.anyOf(operands(node));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Predicate<Resource>[] operands(Node node) {
+		return byCost(node.children).map(child -> visit(child, null)).toArray(Predicate[]::new);
+	}
+
+	/*
+	 * Both operations are commutative for side effect free predicates, so the
+	 * cheapest operands can be evaluated first without changing the result.
+	 * Operands of equal cost keep their order in the statement.
+	 */
+	private Stream<Node> byCost(List<Node> nodes) {
+		Map<Node, Integer> costs = new IdentityHashMap<>();
+		nodes.forEach(child -> costs.put(child, child.accept(costVisitor, null)));
+		return nodes.stream().sorted(Comparator.comparing(costs::get));
 	}
 
 	private Predicate<Resource> createComparisonPredicate(Node comparisonNode) {
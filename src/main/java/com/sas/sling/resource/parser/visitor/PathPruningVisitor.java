@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodeType;
+import com.sas.sling.resource.parser.node.Visitor;
+
+/**
+ * Visitor which derives a traversal control from the conditions placed on the
+ * 'path' function. The resulting predicate rejects a resource when no resource
+ * in its subtree could satisfy those conditions, so that the whole subtree can
+ * be skipped.
+ *
+ * A null return value indicates that the statement places no constraint on the
+ * path.
+ */
+public class PathPruningVisitor implements Visitor<Predicate<Resource>, Void> {
+
+	private static final String REGEX_META_CHARACTERS = "\\.[]{}()*+?^$|";
+
+	private static final String REGEX_QUANTIFIERS = "*+?{";
+
+	@Override
+	public Predicate<Resource> visit(Node node, Void param) {
+		switch (node.type) {
+		case AND:
+			return createAndPredicate(node);
+		case OR:
+			return createOrPredicate(node);
+		case COMPARISON:
+			return createComparisonPredicate(node);
+		default:
+			// no constraint
+		}
+		return null;
+	}
+
+	/*
+	 * a subtree may only contain a match if it passes every constrained operand
+	 */
+	private Predicate<Resource> createAndPredicate(Node node) {
+		Predicate<Resource> result = null;
+		for (Node child : node.children) {
+			Predicate<Resource> predicate = visit(child, null);
+			if (predicate != null) {
+				result = result == null ? predicate : result.and(predicate);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * a subtree may contain a match if it passes any operand, an unconstrained
+	 * operand therefore removes the constraint
+	 */
+	private Predicate<Resource> createOrPredicate(Node node) {
+		List<Predicate<Resource>> predicates = new ArrayList<>();
+		for (Node child : node.children) {
+			Predicate<Resource> predicate = visit(child, null);
+			if (predicate == null) {
+				return null;
+			}
+			predicates.add(predicate);
+		}
+		return predicates.stream().reduce(Predicate::or).orElse(null);
+	}
+
+	private Predicate<Resource> createComparisonPredicate(Node node) {
+		switch (node.comparisonOp) {
+		case EQUAL:
+			String path = null;
+			if (isPathFunction(node.leftNode) && node.rightNode.type == NodeType.STRING) {
+				path = node.rightNode.text;
+			} else if (isPathFunction(node.rightNode) && node.leftNode.type == NodeType.STRING) {
+				path = node.leftNode.text;
+			}
+			if (path != null) {
+				final String target = path;
+				return resource -> isWithin(target, resource.getPath());
+			}
+			break;
+		case LIKE:
+			if (isPathFunction(node.leftNode) && node.rightNode.type == NodeType.STRING) {
+				final String prefix = literalPrefix(node.rightNode.text);
+				if (!prefix.isEmpty()) {
+					return resource -> {
+						String candidate = resource.getPath();
+						return candidate.startsWith(prefix) || isWithin(prefix, candidate);
+					};
+				}
+			}
+			break;
+		default:
+			// no constraint
+		}
+		return null;
+	}
+
+	private static boolean isPathFunction(Node node) {
+		return node.type == NodeType.FUNCTION && "path".equals(node.text) && node.children.isEmpty();
+	}
+
+	/*
+	 * true if the path is the ancestor path or lies beneath it
+	 */
+	private static boolean isWithin(String path, String ancestor) {
+		if (!path.startsWith(ancestor)) {
+			return false;
+		}
+		return path.length() == ancestor.length() || ancestor.endsWith("/") || path.charAt(ancestor.length()) == '/';
+	}
+
+	/**
+	 * Provides the literal text that every String matching the regular
+	 * expression starts with. Alternations and leading constructs result in an
+	 * empty prefix.
+	 *
+	 * @param regex
+	 *            regular expression
+	 * @return literal prefix, possibly empty
+	 */
+	static String literalPrefix(String regex) {
+		if (regex.indexOf('|') >= 0) {
+			return "";
+		}
+		int end = 0;
+		while (end < regex.length() && REGEX_META_CHARACTERS.indexOf(regex.charAt(end)) < 0) {
+			++end;
+		}
+		// a quantifier makes the preceding character optional or repeatable
+		if (end > 0 && end < regex.length() && REGEX_QUANTIFIERS.indexOf(regex.charAt(end)) >= 0) {
+			--end;
+		}
+		return regex.substring(0, end);
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resource.parser.visitor;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.sas.sling.resource.parser.Projection;
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.Visitor;
+
+/**
+ * Collects the properties read by a statement into a {@link Projection}.
+ *
+ * Instances collect the properties of a single statement and are not thread
+ * safe.
+ */
+public class ProjectionVisitor implements Visitor<Void, Void> {
+
+	private final Set<String> names = new LinkedHashSet<>();
+
+	private int references;
+
+	private boolean opaque;
+
+	/**
+	 * @param rootNode
+	 *            root of the statement
+	 * @return properties read by the statement
+	 */
+	public static Projection project(Node rootNode) {
+		ProjectionVisitor visitor = new ProjectionVisitor();
+		rootNode.accept(visitor, null);
+		if (visitor.names.isEmpty() && !visitor.opaque) {
+			return Projection.empty();
+		}
+		return new Projection(visitor.names.toArray(new String[0]), visitor.references, visitor.opaque);
+	}
+
+	@Override
+	public Void visit(Node node, Void param) {
+		switch (node.type) {
+		case AND:
+		case OR:
+		case LIST:
+			node.visitChildren(this, null);
+			break;
+		case COMPARISON:
+			node.leftNode.accept(this, null);
+			node.rightNode.accept(this, null);
+			break;
+		case FUNCTION:
+			switch (node.text) {
+			case "name":
+			case "path":
+			case "date":
+				break;
+			default:
+				opaque = true;
+			}
+			node.visitChildren(this, null);
+			break;
+		case PROPERTY:
+			++references;
+			names.add(node.text);
+			break;
+		default:
+			// literals
+		}
+		return null;
+	}
+
+}
@@ -16,32 +16,78 @@ package com.sas.sling.resource.parser.visitor;
 import java.math.BigDecimal;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.resource.ValueMap;
 
+import com.sas.sling.resource.parser.EvaluationContext;
+import com.sas.sling.resource.parser.Projection;
 import com.sas.sling.resource.parser.conversion.Null;
 import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodeType;
 import com.sas.sling.resource.parser.node.Visitor;
+import com.sas.sling.resource.parser.provider.ConstantValue;
 import com.sas.sling.resource.parser.provider.InstantProvider;
 import com.sas.sling.resource.parser.provider.ValueProvider;
 
 public class ValueVisitor implements Visitor<Function<Resource, Object>, Void> {
 
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
 	private Map<String, ValueProvider> functions = new HashMap<>();
+
+	// 0 while no function is registered
+	private long functionsVersion;
 	
 	private ValueProvider instant = new InstantProvider();
 
+	private Projection projection;
+
+	public ValueVisitor() {
+	}
+
+	private ValueVisitor(Map<String, ValueProvider> functions, long functionsVersion, Projection projection) {
+		this.functions = functions;
+		this.functionsVersion = functionsVersion;
+		this.projection = projection;
+	}
+
+	/**
+	 * Provides a visitor which shares the registered functions with this one and
+	 * reads properties as part of the projection
+	 * 
+	 * @param projection
+	 *            properties read by the statement that is visited
+	 * @return visitor for the statement
+	 */
+	public ValueVisitor project(Projection projection) {
+		return new ValueVisitor(functions, functionsVersion, projection);
+	}
+
 	@Override
 	public Function<Resource, Object> visit(Node node, Void param) {
 		switch (node.type) {
 		case FUNCTION:
 			break;
 		case NULL:
-			return resource -> new Null();
+			return new ConstantValue(Null.INSTANCE);
+		case CONSTANT:
+			return new ConstantValue(node.value);
+		case LIST:
+			List<Function<Resource, Object>> elements = node.visitChildren(this, null);
+			return resource -> {
+				Object[] values = new Object[elements.size()];
+				for (int i = 0; i < values.length; ++i) {
+					values[i] = elements.get(i).apply(resource);
+				}
+				return values;
+			};
 		case NUMBER:
 			Number numericValue = null;
 			{
@@ -56,34 +102,40 @@ public class ValueVisitor implements Visitor<Function<Resource, Object>, Void> {
 					}
 				}
 			}
-			final Number numericReply = numericValue;
-			return resource -> numericReply;
+			return new ConstantValue(numericValue);
 		case PROPERTY:
+			String name = node.text;
+			int index = projection != null ? projection.indexOf(name) : -1;
+			if (index >= 0) {
+				Projection properties = projection;
+				return resource -> {
+					if (resource instanceof EvaluationContext) {
+						return ((EvaluationContext) resource).getProperty(properties, index, ValueVisitor::readProperty);
+					}
+					return readProperty(resource, name);
+				};
+			}
 			return resource -> {
-				Object value = valueMapOf(resource).get(node.text);
-				if (value instanceof Boolean) {
-					return value.toString();
-				}
-				if (value instanceof Calendar){
-					return ((Calendar)value).toInstant();
+				if (resource instanceof EvaluationContext) {
+					return ((EvaluationContext) resource).getProperty(name, ValueVisitor::readProperty);
 				}
-				return value;
+				return readProperty(resource, name);
 			};
 		default:
-			return resource -> node.text;
+			return new ConstantValue(node.text);
 		}
 		// will only get here in the case of the 'FUNCTION' switch case
 		switch (node.text) {
 		case "name":
 			return resource -> resource.getName();
 		case "date":
-			return instant.provision(node.visitChildren(this, null));
+			return instant.provision(arguments(node));
 		case "path":
 			return resource -> resource.getPath();
 		default:
 			ValueProvider temp = functions.get(node.text);
 			if (temp !=  null){
-				return temp.provision(node.visitChildren(this, null));
+				return temp.provision(arguments(node));
 			}
 			
 		}
@@ -91,14 +143,80 @@ public class ValueVisitor implements Visitor<Function<Resource, Object>, Void> {
 	}
 
 	public ValueProvider registerFunction(String functionName, ValueProvider function) {
-		return this.functions.put(functionName, function);
+		ValueProvider previous = this.functions.put(functionName, function);
+		functionsVersion = VERSIONS.incrementAndGet();
+		return previous;
 	}
 
 	public ValueProvider removeFunction(String functionName) {
-		return this.functions.remove(functionName);
+		ValueProvider previous = this.functions.remove(functionName);
+		functionsVersion = functions.isEmpty() ? 0 : VERSIONS.incrementAndGet();
+		return previous;
+	}
+
+	/**
+	 * Identifies the registered functions. Every change to them provides a new
+	 * version, visitors without functions share version 0.
+	 * 
+	 * @return version of the registered functions
+	 */
+	public long getFunctionsVersion() {
+		return functionsVersion;
 	}
 	
-	private ValueMap valueMapOf(Resource resource){
+	/*
+	 * Comparisons convert the values of properties as they are stored, functions
+	 * are provided with Booleans as Strings and Calendars as Instants
+	 */
+	private List<Function<Resource, Object>> arguments(Node node) {
+		List<Function<Resource, Object>> arguments = node.visitChildren(this, null);
+		ListIterator<Function<Resource, Object>> iterator = arguments.listIterator();
+		for (Node child : node.children) {
+			Function<Resource, Object> argument = iterator.next();
+			if (child.type == NodeType.PROPERTY) {
+				iterator.set(resource -> asArgument(argument.apply(resource)));
+			}
+		}
+		return arguments;
+	}
+
+	private static Object asArgument(Object value) {
+		if (value instanceof Boolean) {
+			return value.toString();
+		}
+		if (value instanceof Calendar) {
+			return ((Calendar) value).toInstant();
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a property the way the filter language does. A name which contains a
+	 * '/' selects a property of a descendant, which is resolved through the
+	 * resource so that an EvaluationContext resolves it only once for all of its
+	 * properties. The value is provided as it is stored, so that reading it does
+	 * not create an object.
+	 * 
+	 * @param resource
+	 *            resource which holds the property
+	 * @param name
+	 *            name of the property, relative to the resource
+	 * @return value of the property, or null
+	 */
+	public static Object readProperty(Resource resource, String name) {
+		String propertyName = name;
+		int slash = name.lastIndexOf('/');
+		if (slash > 0) {
+			resource = resource.getChild(name.substring(0, slash));
+			if (resource == null) {
+				return null;
+			}
+			propertyName = name.substring(slash + 1);
+		}
+		return valueMapOf(resource).get(propertyName);
+	}
+
+	private static ValueMap valueMapOf(Resource resource){
 		if (resource == null || ResourceUtil.isNonExistingResource(resource)){
 			return ValueMap.EMPTY;
 		}
@@ -0,0 +1,366 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+/**
+ * Generates a tree of pages for benchmarks and tests. The shape and the
+ * content of the tree are drawn from a random generator with a fixed seed, so
+ * a generator with the same seed and settings always generates the same tree.
+ * 
+ * Every page has the properties 'sling:resourceType', 'count' (Long),
+ * 'published' (Boolean) and 'tags' (String[]), and a 'jcr:content' child with
+ * 'jcr:title' (String) and 'created' (Calendar). Additional properties named
+ * 'propa', 'propb' and so on cycle through the same value types, the filter
+ * language does not allow digits in property names.
+ * 
+ * The tree is generated in memory, and can be created below a resource of a
+ * resolver or written as JSON which the ContentLoader of the unit tests reads.
+ */
+public class ContentGenerator {
+
+	public static final String[] TITLES = { "English", "German", "French", "Mongolian" };
+
+	public static final String[] TAGS = { "red", "green", "blue" };
+
+	private static final long CREATED = 1375972379000L;
+
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+
+	// format of the dates read by the ContentLoader
+	private static final String DATE_FORMAT = "EEE MMM dd yyyy HH:mm:ss 'GMT'Z";
+
+	private final long seed;
+
+	private int depth = 3;
+
+	private int minimumFanOut = 10;
+
+	private int maximumFanOut = 10;
+
+	private int largeFolder;
+
+	private int minimumProperties;
+
+	private int maximumProperties;
+
+	private String[] resourceTypes = { "benchmark/page" };
+
+	private Random random;
+
+	private long count;
+
+	/**
+	 * @param seed
+	 *            seed of the random generator
+	 */
+	public ContentGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param depth
+	 *            levels of pages below the root, 3 by default
+	 * @return this generator
+	 */
+	public ContentGenerator depth(int depth) {
+		this.depth = requireNonNegative(depth);
+		return this;
+	}
+
+	/**
+	 * @param fanOut
+	 *            child pages of every page, 10 by default
+	 * @return this generator
+	 */
+	public ContentGenerator fanOut(int fanOut) {
+		return fanOut(fanOut, fanOut);
+	}
+
+	/**
+	 * @param minimum
+	 *            least number of child pages of a page
+	 * @param maximum
+	 *            largest number of child pages of a page, the numbers in between
+	 *            are equally likely
+	 * @return this generator
+	 */
+	public ContentGenerator fanOut(int minimum, int maximum) {
+		this.minimumFanOut = requireRange(minimum, maximum);
+		this.maximumFanOut = maximum;
+		return this;
+	}
+
+	/**
+	 * Adds a page named 'large' to the root, which has the given number of child
+	 * pages without children of their own
+	 * 
+	 * @param children
+	 *            child pages of the large page, 0 for none
+	 * @return this generator
+	 */
+	public ContentGenerator largeFolder(int children) {
+		this.largeFolder = requireNonNegative(children);
+		return this;
+	}
+
+	/**
+	 * @param minimum
+	 *            least number of additional properties of a page
+	 * @param maximum
+	 *            largest number of additional properties of a page
+	 * @return this generator
+	 */
+	public ContentGenerator properties(int minimum, int maximum) {
+		this.minimumProperties = requireRange(minimum, maximum);
+		this.maximumProperties = maximum;
+		return this;
+	}
+
+	/**
+	 * @param types
+	 *            resource types which are equally likely, a type which is
+	 *            repeated is more likely
+	 * @return this generator
+	 */
+	public ContentGenerator resourceTypes(String... types) {
+		if (types.length == 0) {
+			throw new IllegalArgumentException("at least one type is required");
+		}
+		this.resourceTypes = types.clone();
+		return this;
+	}
+
+	/**
+	 * Generates the tree in memory
+	 * 
+	 * @param path
+	 *            path of the root, which has no properties of its own
+	 * @return the root of the tree
+	 */
+	public MemoryResource generate(String path) {
+		random = new Random(seed);
+		count = 0;
+		MemoryResource root = MemoryResource.root(path, new HashMap<>());
+		addPages(root, depth);
+		if (largeFolder > 0) {
+			MemoryResource folder = addPage(root, "large");
+			for (int i = 0; i < largeFolder; ++i) {
+				addPage(folder, "page-" + i);
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Creates the tree below an existing resource and commits it
+	 * 
+	 * @param resolver
+	 *            resolver which creates the resources
+	 * @param parent
+	 *            resource which becomes the root of the tree
+	 * @return number of resources created
+	 * @throws PersistenceException
+	 *             if the resources cannot be created
+	 */
+	public long create(ResourceResolver resolver, Resource parent) throws PersistenceException {
+		long created = copyChildren(resolver, generate(parent.getPath()), parent);
+		resolver.commit();
+		return created;
+	}
+
+	/**
+	 * Writes the tree as JSON, which is read by
+	 * {@code ContentLoader.json(InputStream, String)} of the unit tests
+	 * 
+	 * @param writer
+	 *            receives the JSON
+	 * @throws IOException
+	 *             if the writer fails
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT, Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		writeJson(generate("/"), writer, format);
+		writer.flush();
+	}
+
+	private void addPages(MemoryResource parent, int levels) {
+		if (levels == 0) {
+			return;
+		}
+		int fanOut = minimumFanOut + random.nextInt(maximumFanOut - minimumFanOut + 1);
+		for (int i = 0; i < fanOut; ++i) {
+			addPages(addPage(parent, "page-" + i), levels - 1);
+		}
+	}
+
+	private MemoryResource addPage(MemoryResource parent, String name) {
+		long index = count++;
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("sling:resourceType", resourceTypes[random.nextInt(resourceTypes.length)]);
+		properties.put("count", index);
+		properties.put("published", random.nextBoolean());
+		properties.put("tags", tags());
+		int additional = minimumProperties + random.nextInt(maximumProperties - minimumProperties + 1);
+		for (int i = 0; i < additional; ++i) {
+			properties.put(propertyName(i), value(i));
+		}
+		MemoryResource page = parent.addChild(name, properties);
+
+		Map<String, Object> content = new HashMap<>();
+		content.put("jcr:title", TITLES[random.nextInt(TITLES.length)]);
+		content.put("created", calendar());
+		page.addChild("jcr:content", content);
+		return page;
+	}
+
+	static String propertyName(int index) {
+		StringBuilder name = new StringBuilder();
+		for (int i = index; i >= 0; i = i / 26 - 1) {
+			name.insert(0, (char) ('a' + i % 26));
+		}
+		return name.insert(0, "prop").toString();
+	}
+
+	private Object value(int index) {
+		switch (index % 5) {
+		case 0:
+			return "value-" + random.nextInt(100);
+		case 1:
+			return (long) random.nextInt(1000);
+		case 2:
+			return random.nextBoolean();
+		case 3:
+			return calendar();
+		default:
+			return tags();
+		}
+	}
+
+	private String[] tags() {
+		String[] tags = new String[1 + random.nextInt(TAGS.length)];
+		for (int i = 0; i < tags.length; ++i) {
+			tags[i] = TAGS[random.nextInt(TAGS.length)];
+		}
+		return tags;
+	}
+
+	// whole seconds within ten days of a fixed date, which JSON represents exactly
+	private Calendar calendar() {
+		Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"), Locale.US);
+		calendar.setTimeInMillis(CREATED + (random.nextInt(20 * 24 * 60 * 60) - 10 * 24 * 60 * 60) * 1000L);
+		return calendar;
+	}
+
+	private static long copyChildren(ResourceResolver resolver, MemoryResource source, Resource target)
+			throws PersistenceException {
+		long created = 0;
+		for (MemoryResource child : source.getMemoryChildren()) {
+			Resource copy = resolver.create(target, child.getName(), new HashMap<>(child.getValueMap()));
+			created += 1 + copyChildren(resolver, child, copy);
+		}
+		return created;
+	}
+
+	private static void writeJson(MemoryResource resource, Writer writer, SimpleDateFormat format)
+			throws IOException {
+		writer.write('{');
+		boolean first = true;
+		for (Map.Entry<String, Object> property : resource.getValueMap().entrySet()) {
+			first = writeName(property.getKey(), first, writer);
+			writeValue(property.getValue(), writer, format);
+		}
+		for (MemoryResource child : resource.getMemoryChildren()) {
+			first = writeName(child.getName(), first, writer);
+			writeJson(child, writer, format);
+		}
+		writer.write('}');
+	}
+
+	private static boolean writeName(String name, boolean first, Writer writer) throws IOException {
+		if (!first) {
+			writer.write(',');
+		}
+		writeString(name, writer);
+		writer.write(':');
+		return false;
+	}
+
+	private static void writeValue(Object value, Writer writer, SimpleDateFormat format) throws IOException {
+		if (value instanceof String[]) {
+			writer.write('[');
+			String[] values = (String[]) value;
+			for (int i = 0; i < values.length; ++i) {
+				if (i > 0) {
+					writer.write(',');
+				}
+				writeString(values[i], writer);
+			}
+			writer.write(']');
+		} else if (value instanceof Calendar) {
+			writeString(format.format(((Calendar) value).getTime()), writer);
+		} else if (value instanceof Long || value instanceof Boolean) {
+			writer.write(value.toString());
+		} else {
+			writeString(Objects.toString(value), writer);
+		}
+	}
+
+	private static void writeString(String value, Writer writer) throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < ' ') {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	private static int requireNonNegative(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("value may not be negative");
+		}
+		return value;
+	}
+
+	private static int requireRange(int minimum, int maximum) {
+		if (requireNonNegative(minimum) > maximum) {
+			throw new IllegalArgumentException("minimum may not be larger than maximum");
+		}
+		return minimum;
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sas.sling.resource.ResourceLocator;
+
+public class ContentGeneratorTest {
+
+	private static final String[] FILTERS = { "[jcr:content/jcr:title] == 'English' and [published] == true",
+			"[count] >= 10 and [count] < 40", "[tags] contains 'red'",
+			"[jcr:content/created] < date('2013-08-08T16:32:59.000+02:00')",
+			"[sling:resourceType] == 'benchmark/folder' or [propb] > 500" };
+
+	@Rule
+	public final SlingContext context = new SlingContext();
+
+	@Test
+	public void testSameSeedGeneratesSameTree() throws Exception {
+		assertEquals(json(generator(42)), json(generator(42)));
+		assertNotEquals(json(generator(42)), json(generator(43)));
+	}
+
+	@Test
+	public void testShape() {
+		MemoryResource root = new ContentGenerator(1).depth(2).fanOut(2, 4).largeFolder(1000).generate("/content");
+		List<MemoryResource> pages = root.getMemoryChildren();
+		// the large folder is added after the regular pages
+		assertEquals("large", pages.get(pages.size() - 1).getName());
+		assertEquals(1000 + 1, pages.get(pages.size() - 1).getMemoryChildren().size());
+		for (MemoryResource page : pages.subList(0, pages.size() - 1)) {
+			int children = page.getMemoryChildren().size() - 1;
+			assertTrue(children >= 2 && children <= 4);
+			assertTrue(page.getChild("jcr:content").getValueMap().containsKey("jcr:title"));
+		}
+	}
+
+	@Test
+	public void testStoredTreesMatchTheTreeInMemory() throws Exception {
+		ContentGenerator generator = generator(7);
+		MemoryResource memory = generator.generate("/content/generated");
+		context.load().json(new ByteArrayInputStream(json(generator).getBytes(StandardCharsets.UTF_8)),
+				"/content/generated");
+		Resource loaded = context.resourceResolver().getResource("/content/generated");
+		Resource created = context.create().resource("/content/created");
+		generator.create(context.resourceResolver(), created);
+		created = context.resourceResolver().getResource("/content/created");
+		for (String filter : FILTERS) {
+			List<String> expected = names(memory, filter);
+			assertTrue(filter, !expected.isEmpty());
+			assertEquals(filter, expected, names(loaded, filter));
+			assertEquals(filter, expected, names(created, filter));
+		}
+	}
+
+	@Test
+	public void testParallelTraversal() throws Exception {
+		MemoryResource root = new ContentGenerator(3).depth(3).fanOut(5, 15).largeFolder(2000).generate("/content");
+		for (String filter : FILTERS) {
+			ResourceLocator locator = ResourceLocator.startFrom(root);
+			assertEquals(filter, locator.stream(filter).count(), locator.stream(filter).parallel().count());
+		}
+	}
+
+	@Test
+	public void testPrunedTraversal() throws Exception {
+		MemoryResource root = generator(5).generate("/content");
+		ResourceLocator locator = ResourceLocator.startFrom(root);
+		long pruned = locator.stream("path() like '/content/page-1/.*' and [published] == true").count();
+		long filtered = locator.stream(resource -> resource.getPath().startsWith("/content/page-1/")
+				&& resource.getValueMap().get("published", false)).count();
+		assertTrue(pruned > 0);
+		assertEquals(filtered, pruned);
+	}
+
+	private static ContentGenerator generator(long seed) {
+		return new ContentGenerator(seed).depth(3).fanOut(2, 6).properties(0, 6).resourceTypes("benchmark/page",
+				"benchmark/page", "benchmark/folder");
+	}
+
+	private static String json(ContentGenerator generator) throws Exception {
+		StringWriter writer = new StringWriter();
+		generator.writeJson(writer);
+		return writer.toString();
+	}
+
+	// relative paths of the matches, the resources of the trees are not comparable
+	private static List<String> names(Resource root, String filter) throws Exception {
+		return ResourceLocator.startFrom(root).stream(filter)
+				.map(resource -> resource.getPath().substring(root.getPath().length())).sorted()
+				.collect(Collectors.toList());
+	}
+
+}
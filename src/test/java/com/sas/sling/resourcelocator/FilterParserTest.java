@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.sas.sling.resource.parser.FilterParser;
+import com.sas.sling.resource.parser.Parser;
+import com.sas.sling.resource.parser.node.Node;
+
+public class FilterParserTest {
+
+	private static final String[] STATEMENTS = {
+			"[jcr:content/jcr:title] == 'English'",
+			"[jcr:content/jcr:title] is \"English\"",
+			"[jcr:content/created] less than date('2013-08-08T16:32:59.000+02:00')",
+			"[jcr:content/created] < date('2013-08-08','yyyy-MM-dd')",
+			"([jcr:content/created] < '2013-08-08T16:32' and [jcr:content/jcr:title] == 'English') or [jcr:content/jcr:title] == 'Mongolian'",
+			"[a] == 'b' && [c] != 'd' || [e] >= 1.5e-3",
+			"[jcr:content/foo] == null ",
+			"[count] < -2 or [count] > 10.25",
+			"[layout] is not null",
+			"name() like 'testpage[1-2]'",
+			"path() like '/content/sample/en/testpage1.*'",
+			"[published] == true and [hidden] == false",
+			"[jcr:content/monkey] contains not any 'fish'",
+			"'fish' not in [jcr:content/monkey]",
+			"'it\\'s' == [title]",
+			"date() > [jcr:created]",
+			"custom 'value' == [prop]",
+			"\t[a]\t==\t'b'",
+			"[a] in ('b', \"c\", 1, [d], date('2013-08-08'))",
+			"[a] contains any ('b')",
+	};
+
+	private static final String[] INVALID_STATEMENTS = {
+			"'fish' in not [jcr:content/monkey]",
+			"[a] == ",
+			"[a] == 'b' and",
+			"([a] == 'b'",
+			"[a] 'b'",
+			"[a] == 'unterminated",
+			"[a] == .5",
+			"[a] == e5",
+			"[a] == 'b' #",
+			"",
+			"[a] in ()",
+			"[a] in ('b',)",
+			"('b', 'c') in [a]",
+	};
+
+	@Test
+	public void testSameTreeAsGeneratedParser() throws Exception {
+		for (String statement : STATEMENTS) {
+			assertEquals(statement, describe(generated(statement)), describe(new FilterParser(statement).Input()));
+		}
+	}
+
+	@Test
+	public void testSameErrorsAsGeneratedParser() {
+		for (String statement : INVALID_STATEMENTS) {
+			Class<?> expected = null;
+			Class<?> actual = null;
+			try {
+				generated(statement);
+			} catch (Throwable e) {
+				expected = e.getClass();
+			}
+			try {
+				new FilterParser(statement).Input();
+			} catch (Throwable e) {
+				actual = e.getClass();
+			}
+			assertNotNull(statement, expected);
+			assertEquals(statement, expected, actual);
+		}
+	}
+
+	@Test
+	public void testParsesAnyCharSequence() throws Exception {
+		StringBuilder statement = new StringBuilder("[a] == 'b'");
+		assertEquals(describe(generated(statement.toString())), describe(new FilterParser(statement).Input()));
+	}
+
+	private static Node generated(String statement) throws Exception {
+		return new Parser(new ByteArrayInputStream(statement.getBytes(StandardCharsets.UTF_8))).Input();
+	}
+
+	private static String describe(Node node) {
+		if (node == null) {
+			return "";
+		}
+		StringBuilder description = new StringBuilder();
+		description.append(node.type).append(':').append(node.text).append(':').append(node.comparisonOp);
+		description.append('{').append(describe(node.leftNode)).append(',').append(describe(node.rightNode));
+		for (Node child : node.children) {
+			description.append(',').append(describe(child));
+		}
+		return description.append('}').toString();
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.sling.api.resource.Resource;
+import org.junit.Test;
+
+import com.sas.sling.resource.parser.predicates.ComparisonPredicates;
+import com.sas.sling.resource.parser.provider.ConstantValue;
+
+public class LikePredicateTest {
+
+	private static final String[] PATTERNS = { "testpage1", "testpage.*", ".*page1", ".*page.*", ".*", "", ".*.*",
+			"/content/sample/en/.*", "test\\.page", "test\\..*", ".*\\.*", "test\\\\.*", "testpage[1-2]",
+			"test\\dpage", "a|b", ".*a.*b", "a.*" };
+
+	private static final String[] VALUES = { "testpage1", "testpage", "mypage1", "page", "", "test.page",
+			"test.", "test\\", "test\\\\x", "testpage\n1", "\ntestpage1", "my\u2028page", "a", "b", "axb", "a\rb",
+			"/content/sample/en/testpage1" };
+
+	@Test
+	public void testMatchesLikePatternMatches() {
+		for (String pattern : PATTERNS) {
+			for (String value : VALUES) {
+				boolean expected = Pattern.matches(pattern, value);
+				String message = "'" + value + "' like '" + pattern + "'";
+				assertEquals(message, expected, like(value, new ConstantValue(pattern)));
+				assertEquals(message, expected, like(value, resource -> pattern));
+			}
+		}
+	}
+
+	@Test(expected = PatternSyntaxException.class)
+	public void testInvalidPatternFailsWhenEvaluated() {
+		like("value", new ConstantValue("[a"));
+	}
+
+	private static boolean like(String value, Function<Resource, Object> pattern) {
+		return ComparisonPredicates.like(resource -> value, pattern).test(null);
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sas.sling.resource.ResourceLocator;
+import com.sas.sling.resource.metrics.JmxLocatorMetrics;
+import com.sas.sling.resource.metrics.LocatorMetrics;
+import com.sas.sling.resource.metrics.QueryMetricsSnapshot;
+import com.sas.sling.resource.parser.FilterParser;
+import com.sas.sling.resource.parser.visitor.FingerprintVisitor;
+
+public class LocatorMetricsTest {
+
+	@Rule
+	public final SlingContext context = new SlingContext();
+
+	private final MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+	private Resource root;
+
+	private JmxLocatorMetrics metrics;
+
+	@Before
+	public void setUp() {
+		context.load().json("/data.json", "/content/sample/en");
+		root = context.resourceResolver().getResource("/content/sample/en");
+		metrics = new JmxLocatorMetrics().register(server, JmxLocatorMetrics.OBJECT_NAME);
+		ResourceLocator.setMetrics(metrics);
+	}
+
+	@After
+	public void tearDown() {
+		ResourceLocator.setMetrics(LocatorMetrics.NONE);
+		metrics.unregister();
+	}
+
+	@Test
+	public void testFingerprintReplacesLiterals() throws Exception {
+		String expected = "[jcr:title] == ? and ([count] > ? or name() like ?) and [tags] in (?)";
+		assertEquals(expected, fingerprint("[jcr:title] is 'English' and ([count] > 1 or name() like 'page.*') and [tags] in ('red')"));
+		assertEquals(expected, fingerprint("[jcr:title]=='French' and ([count] greater than 10.5 or name() like \"a\") and [tags] in ('a', 'b')"));
+		assertEquals("[layout] == null or [a] in ([b], ?)", fingerprint("[layout] is null or [a] in ([b], 'c')"));
+	}
+
+	@Test
+	public void testTraversalsAreRecordedByFingerprint() throws Exception {
+		ResourceLocator.startFrom(root).count("[published] == true and [views] >= 3");
+		ResourceLocator.startFrom(root).count("[published] == false and [views] >= 3");
+		ResourceLocator.startFrom(root).locateResources("[published] == true and [views] >= 4");
+
+		QueryMetricsSnapshot query = metrics.getQuery("[published] == ? and [views] >= ?");
+		assertEquals(3, query.getExecutions());
+		assertEquals(3, query.getCompilations());
+		assertEquals(3 * 20, query.getVisited());
+		// only the content of testpage1 is published
+		assertEquals(2, query.getMatched());
+		assertTrue(query.getTraversalNanos() > 0);
+		assertTrue(query.getTraversalNanosP99() >= query.getTraversalNanosP50());
+		assertNull(metrics.getQuery("[published] == ?"));
+	}
+
+	@Test
+	public void testMXBean() throws Exception {
+		ResourceLocator.startFrom(root).exists("[views] >= 3 and [jcr:content/jcr:title] != 'German'");
+		ObjectName name = new ObjectName(JmxLocatorMetrics.OBJECT_NAME);
+		assertEquals(1L, server.getAttribute(name, "Executions"));
+		CompositeData[] queries = (CompositeData[]) server.getAttribute(name, "Queries");
+		assertEquals(1, queries.length);
+		assertEquals("[views] >= ? and [jcr:content/jcr:title] != ?", queries[0].get("fingerprint"));
+		assertEquals(64, ((long[]) queries[0].get("traversalHistogram")).length);
+		server.invoke(name, "reset", null, null);
+		assertEquals(0, server.getAttribute(name, "FingerprintCount"));
+	}
+
+	@Test
+	public void testFingerprintsAreBounded() throws Exception {
+		JmxLocatorMetrics bounded = new JmxLocatorMetrics(1);
+		bounded.traversed("[a] == ?", 1, 1, 1);
+		bounded.traversed("[b] == ?", 1, 1, 1);
+		bounded.traversed("[c] == ?", 1, 1, 1);
+		assertEquals(2, bounded.getFingerprintCount());
+		assertEquals(2, bounded.getQuery(JmxLocatorMetrics.OTHER).getExecutions());
+	}
+
+	private static String fingerprint(String statement) throws Exception {
+		return FingerprintVisitor.fingerprint(new FilterParser(statement).Input());
+	}
+
+}
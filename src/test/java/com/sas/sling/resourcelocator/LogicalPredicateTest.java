@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import com.sas.sling.resource.Conditions;
+import com.sas.sling.resource.parser.predicates.LogicalPredicate;
+import com.sas.sling.resource.parser.predicates.LogicalPredicate.Operator;
+
+public class LogicalPredicateTest {
+
+	private final List<String> evaluated = new ArrayList<>();
+
+	@Test
+	public void testConjunctionStopsAtFirstFalseOperand() {
+		Predicate<String> conjunction = LogicalPredicate.allOf(operand("a", true), operand("b", false), operand("c", true));
+		assertFalse(conjunction.test(""));
+		assertEquals("[a, b]", evaluated.toString());
+	}
+
+	@Test
+	public void testDisjunctionStopsAtFirstTrueOperand() {
+		Predicate<String> disjunction = LogicalPredicate.anyOf(operand("a", false), operand("b", true), operand("c", false));
+		assertTrue(disjunction.test(""));
+		assertEquals("[a, b]", evaluated.toString());
+	}
+
+	@Test
+	public void testEmptyOperands() {
+		assertTrue(LogicalPredicate.allOf().test(""));
+		assertFalse(LogicalPredicate.anyOf().test(""));
+	}
+
+	@Test
+	public void testChainingKeepsOrder() {
+		Predicate<String> conjunction = LogicalPredicate.allOf(operand("a", true));
+		for (String name : new String[] { "b", "c", "d" }) {
+			conjunction = conjunction.and(operand(name, true));
+		}
+		assertEquals(Operator.AND, ((LogicalPredicate<String>) conjunction).getOperator());
+		assertTrue(conjunction.test(""));
+		assertEquals("[a, b, c, d]", evaluated.toString());
+
+		evaluated.clear();
+		Predicate<String> disjunction = Conditions.either(operand("a", false), operand("b", false))
+				.or(LogicalPredicate.anyOf(operand("c", false), operand("d", true)));
+		assertEquals(Operator.OR, ((LogicalPredicate<String>) disjunction).getOperator());
+		assertTrue(disjunction.test(""));
+		assertEquals("[a, b, c, d]", evaluated.toString());
+	}
+
+	@Test
+	public void testMixedOperatorsAreNotMerged() {
+		Predicate<String> predicate = LogicalPredicate.anyOf(operand("a", false), operand("b", true))
+				.and(operand("c", false));
+		assertEquals(Operator.AND, ((LogicalPredicate<String>) predicate).getOperator());
+		assertFalse(predicate.test(""));
+		assertEquals("[a, b, c]", evaluated.toString());
+	}
+
+	private Predicate<String> operand(String name, boolean result) {
+		return value -> {
+			evaluated.add(name);
+			return result;
+		};
+	}
+
+}
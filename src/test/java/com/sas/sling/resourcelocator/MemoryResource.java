@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+
+/**
+ * Resource which holds its properties and children in memory, without a
+ * resource resolver. Lookups cost no more than a map access, so a traversal of
+ * a large tree is not dominated by the mocked resolver.
+ */
+public final class MemoryResource extends AbstractResource {
+
+	private final MemoryResource parent;
+
+	private final String name;
+
+	private final String path;
+
+	private final ValueMap properties;
+
+	private final Map<String, MemoryResource> children = new LinkedHashMap<>();
+
+	private final ResourceMetadata metadata = new ResourceMetadata();
+
+	private MemoryResource(MemoryResource parent, String name, Map<String, Object> properties) {
+		this.parent = parent;
+		this.name = name;
+		if (parent == null) {
+			this.path = name.isEmpty() ? "/" : name;
+		} else {
+			this.path = ("/".equals(parent.path) ? "" : parent.path) + "/" + name;
+		}
+		this.properties = new ValueMapDecorator(properties);
+		metadata.setResolutionPath(path);
+	}
+
+	/**
+	 * @param path
+	 *            absolute path of the resource
+	 * @param properties
+	 *            properties of the resource
+	 * @return resource without a parent
+	 */
+	public static MemoryResource root(String path, Map<String, Object> properties) {
+		return new MemoryResource(null, path, properties);
+	}
+
+	/**
+	 * @param name
+	 *            name of the child, which replaces a child of the same name
+	 * @param properties
+	 *            properties of the child
+	 * @return the new child
+	 */
+	public MemoryResource addChild(String name, Map<String, Object> properties) {
+		MemoryResource child = new MemoryResource(this, name, properties);
+		children.put(name, child);
+		return child;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public Resource getParent() {
+		return parent;
+	}
+
+	@Override
+	public Resource getChild(String relPath) {
+		MemoryResource resource = this;
+		for (String segment : relPath.split("/")) {
+			if (resource == null) {
+				return null;
+			}
+			if (segment.equals("..")) {
+				resource = resource.parent;
+			} else if (!segment.equals(".")) {
+				resource = resource.children.get(segment);
+			}
+		}
+		return resource;
+	}
+
+	@Override
+	public Iterator<Resource> listChildren() {
+		return getChildren().iterator();
+	}
+
+	@Override
+	public Iterable<Resource> getChildren() {
+		return Collections.<Resource>unmodifiableCollection(children.values());
+	}
+
+	@Override
+	public boolean hasChildren() {
+		return !children.isEmpty();
+	}
+
+	/**
+	 * @return the children in the order they were added
+	 */
+	public List<MemoryResource> getMemoryChildren() {
+		return Collections.unmodifiableList(new ArrayList<>(children.values()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+		if (type == ValueMap.class || type == Map.class) {
+			return (AdapterType) properties;
+		}
+		return super.adaptTo(type);
+	}
+
+	@Override
+	public ValueMap getValueMap() {
+		return properties;
+	}
+
+	@Override
+	public String getResourceType() {
+		return properties.get("sling:resourceType", "nt:unstructured");
+	}
+
+	@Override
+	public String getResourceSuperType() {
+		return null;
+	}
+
+	@Override
+	public ResourceMetadata getResourceMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public ResourceResolver getResourceResolver() {
+		return null;
+	}
+
+}
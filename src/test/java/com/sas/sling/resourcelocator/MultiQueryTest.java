@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sas.sling.resource.ResourceLocator;
+import com.sas.sling.resource.TraversalStats;
+import com.sas.sling.resource.parser.EvaluationContext;
+
+public class MultiQueryTest {
+
+	@Rule
+	public final SlingContext context = new SlingContext();
+
+	private Resource root;
+
+	@Before
+	public void setUp() {
+		context.load().json("/data.json", "/content/sample/en");
+		root = context.resourceResolver().getResource("/content/sample/en");
+	}
+
+	private static Map<String, String> filters() {
+		Map<String, String> filters = new LinkedHashMap<>();
+		filters.put("published", "[published] == true");
+		filters.put("viewed", "[views] > 3 and [published] == false");
+		filters.put("english", "[jcr:content/jcr:title] == 'English' or [views] in (3, 4)");
+		filters.put("below", "path() like '/content/sample/en/[^/]+/.*'");
+		filters.put("none", "[views] < 0");
+		return filters;
+	}
+
+	@Test
+	public void testSameResultsAsSeparateTraversals() throws Exception {
+		ResourceLocator locator = ResourceLocator.startFrom(root);
+		Map<String, Predicate<Resource>> conditions = locator.parse(filters());
+		conditions.put("pages", resource -> !resource.getName().equals("jcr:content"));
+		conditions.put("unwrapped", resource -> !(resource instanceof EvaluationContext));
+		TraversalStats stats = new TraversalStats();
+		Map<String, List<Resource>> found = ResourceLocator.startFrom(root).collectStats(stats).locateEach(conditions);
+		assertEquals(conditions.keySet(), found.keySet());
+		for (Map.Entry<String, Predicate<Resource>> condition : conditions.entrySet()) {
+			assertEquals(condition.getKey(), paths(ResourceLocator.startFrom(root).locateResources(condition.getValue())),
+					paths(found.get(condition.getKey())));
+		}
+		assertEquals(1, found.get("published").size());
+		assertEquals(5, found.get("english").size());
+		assertEquals(20, stats.getVisitedCount());
+		assertEquals(20, found.get("unwrapped").size());
+	}
+
+	@Test
+	public void testLimitPerCondition() throws Exception {
+		ResourceLocator locator = ResourceLocator.startFrom(root);
+		Map<String, Predicate<Resource>> conditions = locator.parse(filters());
+		Map<String, List<Resource>> found = ResourceLocator.startFrom(root).range(1, 2).locateEach(conditions);
+		for (Map.Entry<String, Predicate<Resource>> condition : conditions.entrySet()) {
+			assertEquals(condition.getKey(),
+					paths(ResourceLocator.startFrom(root).range(1, 2).locateResources(condition.getValue())),
+					paths(found.get(condition.getKey())));
+		}
+	}
+
+	@Test
+	public void testPrunesWhenEveryConditionDoes() throws Exception {
+		Map<String, String> filters = new LinkedHashMap<>();
+		filters.put("first", "path() like '/content/sample/en/testpage1/.*' and [published] == true");
+		filters.put("second", "path() like '/content/sample/en/testpage2/.*'");
+		ResourceLocator locator = ResourceLocator.startFrom(root);
+		Map<String, Predicate<Resource>> conditions = locator.parse(filters);
+		TraversalStats stats = new TraversalStats();
+		Map<String, List<Resource>> found = ResourceLocator.startFrom(root).collectStats(stats).locateEach(conditions);
+		assertEquals(paths(locator.locateResources(conditions.get("first"))), paths(found.get("first")));
+		assertEquals(paths(locator.locateResources(conditions.get("second"))), paths(found.get("second")));
+		assertTrue(stats.getPrunedCount() > 0);
+	}
+
+	@Test
+	public void testCallbacks() throws Exception {
+		ResourceLocator locator = ResourceLocator.startFrom(root);
+		Map<String, Predicate<Resource>> conditions = locator.parse(filters());
+		Map<String, Consumer<Resource>> callbacks = new HashMap<>();
+		List<String> published = new ArrayList<>();
+		AtomicInteger others = new AtomicInteger();
+		for (String name : conditions.keySet()) {
+			callbacks.put(name, resource -> others.incrementAndGet());
+		}
+		callbacks.put("published", resource -> published.add(resource.getPath()));
+		locator.locateEach(conditions, callbacks);
+		assertEquals(locator.count(conditions.get("published")), published.size());
+		assertTrue(others.get() > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingCallback() throws Exception {
+		ResourceLocator locator = ResourceLocator.startFrom(root);
+		locator.locateEach(locator.parse(filters()), new HashMap<String, Consumer<Resource>>());
+	}
+
+	@Test
+	public void testSharedPropertiesAreReadOnce() throws Exception {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("views", 5L);
+		properties.put("published", true);
+		properties.put("title", "English");
+		AtomicInteger reads = new AtomicInteger();
+		ValueMap valueMap = new ValueMapDecorator(properties) {
+			@Override
+			public Object get(Object name) {
+				reads.incrementAndGet();
+				return super.get(name);
+			}
+		};
+		Resource resource = new ResourceWrapper(context.create().resource("/content/counted", properties)) {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+				return type == ValueMap.class ? (AdapterType) valueMap : super.adaptTo(type);
+			}
+
+			@Override
+			public ValueMap getValueMap() {
+				return valueMap;
+			}
+		};
+		Map<String, String> filters = new LinkedHashMap<>();
+		filters.put("a", "[views] > 1 and [published] == true");
+		filters.put("b", "[views] in (5, 6) or [title] == 'German'");
+		filters.put("c", "[title] like 'Eng.*'");
+		filters.put("d", "[published] == false");
+		ResourceLocator locator = ResourceLocator.startFrom(resource);
+		Map<String, List<Resource>> found = locator.locateEach(locator.parse(filters));
+		assertEquals(3, reads.get());
+		assertEquals(1, found.get("a").size());
+		assertEquals(1, found.get("b").size());
+		assertEquals(1, found.get("c").size());
+		assertEquals(0, found.get("d").size());
+		assertEquals(resource, found.get("a").get(0));
+	}
+
+	// resources of the mock resolver are compared by identity
+	private static List<String> paths(List<Resource> resources) {
+		return resources.stream().map(Resource::getPath).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+import org.junit.Test;
+
+import com.sas.sling.resource.parser.conversion.Null;
+import com.sas.sling.resource.parser.predicates.ComparisonPredicates;
+import com.sas.sling.resource.parser.provider.ConstantValue;
+
+public class NumericComparisonTest {
+
+	private static final Object[] VALUES = { 0, -0.0d, 0.0d, 1, -1, 10, 11, 10L, Long.MAX_VALUE, Long.MIN_VALUE,
+			(1L << 53) + 1, 1L << 53, (short) 10, (byte) -1, 10.25d, 10.0d, 0.1d, 1e300d, Double.NaN,
+			Double.POSITIVE_INFINITY, new BigDecimal("10.25"), new BigDecimal("10"), new BigDecimal("10.00"),
+			new BigDecimal("-10.25"), new BigDecimal("0.1"), new BigDecimal("0.10000000000000001"),
+			new BigDecimal("1e30"), new BigDecimal("-1e30"), 1.5f, "12", "10.25", "abc", new Null(), Null.INSTANCE, "10",
+			"010", "-1", "1e1", Boolean.TRUE, Boolean.FALSE, "true", "false", calendar(1375972379000L),
+			Instant.ofEpochMilli(1375972379000L), "2013-08-08T14:32:59Z", 1375972379000L, null };
+
+	private static final List<BiFunction<Function<Resource, Object>, Function<Resource, Object>, Predicate<Resource>>> COMPARISONS = Arrays
+			.asList(ComparisonPredicates::gt, ComparisonPredicates::gte, ComparisonPredicates::lt,
+					ComparisonPredicates::lte, ComparisonPredicates::is);
+
+	@Test
+	public void testConstantRightHandValueMatchesGenericComparison() {
+		for (Object lhValue : VALUES) {
+			for (Object rhValue : VALUES) {
+				for (int i = 0; i < COMPARISONS.size(); ++i) {
+					BiFunction<Function<Resource, Object>, Function<Resource, Object>, Predicate<Resource>> comparison = COMPARISONS
+							.get(i);
+					String message = i + ": " + lhValue + " against " + rhValue;
+					assertEquals(message, evaluate(comparison.apply(resource -> lhValue, resource -> rhValue)),
+							evaluate(comparison.apply(resource -> lhValue, new ConstantValue(rhValue))));
+				}
+			}
+		}
+	}
+
+	private static Calendar calendar(long millis) {
+		Calendar calendar = new GregorianCalendar();
+		calendar.setTimeInMillis(millis);
+		return calendar;
+	}
+
+	private static Object evaluate(Predicate<Resource> predicate) {
+		try {
+			return predicate.test(null);
+		} catch (RuntimeException e) {
+			return e.getClass();
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sas.sling.resource.PropertyIndex;
+import com.sas.sling.resource.ResourceLocator;
+import com.sas.sling.resource.TraversalStats;
+
+public class PropertyIndexTest {
+
+	private static final String[] INDEXED = {
+			"[jcr:primaryType] == 'app:Page'",
+			"'app:PageContent' == [jcr:primaryType]",
+			"[jcr:primaryType] is 'app:PageContent' and [published] == true",
+			"[monkey] contains 'foo'",
+			"[monkey] contains ('foo', 'fish')",
+			"[monkey] contains any ('fish', 'cat') and [views] > 5",
+			"[monkey] in ('foo', 'fish', 'cat')",
+			"[views] in (1, 2, 3) or [views] == 10",
+			"[jcr:content/jcr:title] == 'English' and [monkey] contains any ('foo') or [sling:resourceType] == 'none'",
+			"([jcr:content/jcr:title] == 'Mongolian' or [views] == 3) and name() like 'test.*'",
+	};
+
+	private static final String[] TRAVERSED = {
+			"[published] == true",
+			"[jcr:primaryType] != 'app:Page'",
+			"[jcr:primaryType] == 'app:Page' or [published] == true",
+			"[views] > 3",
+			"[sling:resourceType] == [jcr:title]",
+	};
+
+	@Rule
+	public final SlingContext context = new SlingContext();
+
+	private Resource root;
+
+	private PropertyIndex index;
+
+	@Before
+	public void setUp() {
+		context.load().json("/data.json", "/content/sample/en");
+		root = context.resourceResolver().getResource("/content/sample/en");
+		index = PropertyIndex.build(root, "jcr:primaryType", "sling:resourceType", "monkey", "views",
+				"jcr:content/jcr:title");
+	}
+
+	@Test
+	public void testSameResultsAsTraversal() throws Exception {
+		for (String filter : INDEXED) {
+			assertTrue(filter, index.isIndexed(filter));
+			assertEquals(filter, paths(ResourceLocator.startFrom(root).locateResources(filter)),
+					paths(ResourceLocator.startFrom(root).usingIndex(index).locateResources(filter)));
+		}
+		for (String filter : TRAVERSED) {
+			assertFalse(filter, index.isIndexed(filter));
+			assertEquals(filter, paths(ResourceLocator.startFrom(root).locateResources(filter)),
+					paths(ResourceLocator.startFrom(root).usingIndex(index).locateResources(filter)));
+		}
+		assertEquals(5, ResourceLocator.startFrom(root).usingIndex(index).locateResources(INDEXED[0]).size());
+	}
+
+	@Test
+	public void testLocatorSettingsApply() throws Exception {
+		String filter = "[jcr:primaryType] == 'nt:unstructured'";
+		List<String> all = paths(ResourceLocator.startFrom(root).locateResources(filter));
+		assertEquals(all.subList(2, 5), paths(ResourceLocator.startFrom(root).usingIndex(index).range(2, 3)
+				.locateResources(filter)));
+		assertEquals(all.subList(0, 4), paths(ResourceLocator.startFrom(root).usingIndex(index).limit(4)
+				.locateResources(filter)));
+		assertEquals(all.subList(3, all.size()), paths(ResourceLocator.startFrom(root).usingIndex(index)
+				.resumeAfter(all.get(2)).locateResources(filter)));
+
+		List<Resource> handled = new ArrayList<>();
+		ResourceLocator.startFrom(root).usingIndex(index).usingCallback(handled::add).locateResources(filter);
+		assertEquals(all, paths(handled));
+		assertEquals(all.size(), ResourceLocator.startFrom(root).usingIndex(index).stream(filter).parallel().count());
+
+		Resource page = root.getChild("testpage1");
+		assertEquals(paths(ResourceLocator.startFrom(page).locateResources(filter)),
+				paths(ResourceLocator.startFrom(page).usingIndex(index).locateResources(filter)));
+		assertEquals(paths(ResourceLocator.startFrom(root).traversalControl("name() != 'testpage2'")
+				.locateResources(filter)),
+				paths(ResourceLocator.startFrom(root).usingIndex(index).traversalControl("name() != 'testpage2'")
+						.locateResources(filter)));
+
+		TraversalStats stats = new TraversalStats();
+		long found = ResourceLocator.startFrom(root).usingIndex(index).collectStats(stats).count(filter);
+		assertEquals(all.size(), found);
+		assertEquals(found, stats.getMatchedCount());
+		// only the candidates are visited
+		assertEquals(index.getPaths("jcr:primaryType", "nt:unstructured").size(), stats.getVisitedCount());
+	}
+
+	@Test
+	public void testTraversalControlTestsEachResourceOnce() throws Exception {
+		Map<String, Integer> tested = new HashMap<>();
+		Predicate<Resource> control = resource -> {
+			tested.merge(resource.getPath(), 1, Integer::sum);
+			return !resource.getName().equals("testpage2");
+		};
+		String filter = "[jcr:primaryType] == 'nt:unstructured'";
+		List<String> traversed = paths(ResourceLocator.startFrom(root).traversalControl(control)
+				.locateResources(filter));
+		tested.clear();
+		assertEquals(traversed, paths(ResourceLocator.startFrom(root).usingIndex(index).traversalControl(control)
+				.locateResources(filter)));
+		assertTrue(tested.containsKey(root.getPath() + "/testpage1/jcr:content"));
+		for (Map.Entry<String, Integer> entry : tested.entrySet()) {
+			assertEquals(entry.getKey(), 1, entry.getValue().intValue());
+		}
+	}
+
+	@Test
+	public void testPostings() throws Exception {
+		assertEquals(20, index.size());
+		List<String> pages = index.getPaths("jcr:primaryType", "app:Page");
+		assertEquals(ResourceLocator.startFrom(root).count("[jcr:primaryType] == 'app:Page'"), pages.size());
+		assertEquals(paths(ResourceLocator.startFrom(root).locateResources("[views] == 10")),
+				index.getPaths("views", "10"));
+		// each element of a multi-valued property is posted
+		assertEquals(1, index.getPaths("monkey", "fish").size());
+		assertEquals(index.getPaths("monkey", "fish"), index.getPaths("monkey", "foo"));
+		assertTrue(index.getPaths("monkey", "purple").isEmpty());
+	}
+
+	@Test
+	public void testEmptyMultiValuedProperty() throws Exception {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("tags", new String[0]);
+		context.create().resource("/content/tags/empty", properties);
+		properties = new HashMap<>();
+		properties.put("tags", new String[] { "red", "purple" });
+		context.create().resource("/content/tags/mixed", properties);
+		Resource content = context.resourceResolver().getResource("/content/tags");
+		PropertyIndex tags = PropertyIndex.build(content, "tags");
+		List<Resource> found = ResourceLocator.startFrom(content).usingIndex(tags)
+				.locateResources("[tags] in ('red', 'green')");
+		assertEquals(paths(ResourceLocator.startFrom(content).locateResources("[tags] in ('red', 'green')")),
+				paths(found));
+		assertEquals(1, found.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotIndexed() {
+		index.getPaths("published", "true");
+	}
+
+	// resources of the mock resolver are compared by identity
+	private static List<String> paths(List<Resource> resources) {
+		return resources.stream().map(Resource::getPath).collect(Collectors.toList());
+	}
+
+}
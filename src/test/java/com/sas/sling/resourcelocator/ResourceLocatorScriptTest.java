@@ -14,20 +14,42 @@
 package com.sas.sling.resourcelocator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
 import com.sas.sling.resource.ResourceLocator;
+import com.sas.sling.resource.parser.CompiledQuery;
+import com.sas.sling.resource.parser.EvaluationContext;
+import com.sas.sling.resource.parser.FilterParser;
+import com.sas.sling.resource.parser.QueryCache;
 import com.sas.sling.resource.parser.ParseException;
+import com.sas.sling.resource.parser.Projection;
 import com.sas.sling.resource.parser.TokenMgrError;
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.node.NodeType;
+import com.sas.sling.resource.parser.visitor.ConstantFoldingVisitor;
+import com.sas.sling.resource.parser.visitor.LogicVisitor;
 
 public class ResourceLocatorScriptTest {
 
@@ -210,6 +232,21 @@ public class ResourceLocatorScriptTest {
 		assertEquals(1, found.size());
 	}
 	
+	@Test
+	public void testInList() throws ParseException {
+		String query = "[jcr:content/jcr:title] in ('English', \"Mongolian\", 'Swahili')";
+		List<Resource> found = handle(START_PATH, query);
+		assertEquals(5, found.size());
+		query = "[jcr:content/monkey] contains any ('fish', 'chips')";
+		assertEquals(1, handle(START_PATH, query).size());
+		query = "[jcr:content/monkey] contains ('fish', 'foo')";
+		assertEquals(1, handle(START_PATH, query).size());
+		query = "[jcr:content/monkey] contains ('fish', 'chips')";
+		assertEquals(0, handle(START_PATH, query).size());
+		query = "name() in ('testpage1', [jcr:content/jcr:title])";
+		assertEquals(1, handle(START_PATH, query).size());
+	}
+	
 	@Test
 	public void testPathLike() throws ParseException {
 		String query = "path() like '/content/sample/en/testpage1.*'";
@@ -250,6 +287,197 @@ public class ResourceLocatorScriptTest {
 		assertEquals("' in not' is not a valid comparison", error.getMessage());
 	}
 	
+	@Test
+	public void testCountAndExists() throws ParseException {
+		Resource resource = context.resourceResolver().getResource(START_PATH);
+		assertEquals(20, ResourceLocator.startFrom(resource).count("[jcr:content/foo] == null"));
+		assertTrue(ResourceLocator.startFrom(resource).exists("name() == 'testpage3'"));
+		assertFalse(ResourceLocator.startFrom(resource).exists("name() == 'testpage9'"));
+	}
+	
+	@Test
+	public void testPathConditionPrunesTraversal() throws ParseException {
+		Resource resource = context.resourceResolver().getResource(START_PATH);
+		String query = "path() like '/content/sample/en/testpage1/.*' and [jcr:primaryType] == 'app:PageContent'";
+		CompiledQuery compiled = (CompiledQuery) ResourceLocator.startFrom(resource).parse(query);
+		Predicate<Resource> pruning = compiled.getTraversalControl().get();
+		assertTrue(pruning.test(resource));
+		assertTrue(pruning.test(resource.getChild("testpage1")));
+		assertFalse(pruning.test(resource.getChild("testpage2")));
+		assertEquals(1, handle(START_PATH, query).size());
+		
+		query = "path() == '/content/sample/en/testpage1' or [jcr:primaryType] == 'app:PageContent'";
+		compiled = (CompiledQuery) ResourceLocator.startFrom(resource).parse(query);
+		assertFalse(compiled.getTraversalControl().isPresent());
+	}
+	
+	@Test
+	public void testCompiledQueriesAreCached() throws ParseException {
+		Resource resource = context.resourceResolver().getResource(START_PATH);
+		QueryCache cache = ResourceLocator.getQueryCache();
+		String query = "[jcr:content/jcr:title] == 'Cached'";
+		long hits = cache.getHitCount();
+		Predicate<Resource> first = ResourceLocator.startFrom(resource).parse(query);
+		Predicate<Resource> second = ResourceLocator.startFrom(resource).parse(query);
+		assertSame(first, second);
+		assertEquals(hits + 1, cache.getHitCount());
+	}
+	
+	@Test
+	public void testQueryCacheKeys() throws ParseException {
+		QueryCache cache = new QueryCache(0);
+		QueryCache.Compiler compiler = filter -> new CompiledQuery(resource -> true, null);
+		assertNotSame(cache.get("name() == 'en'", 0, compiler), cache.get("name() == 'en'", 0, compiler));
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(0, cache.size());
+
+		LogicVisitor visitor = new LogicVisitor();
+		assertEquals(0, visitor.getValueVisitor().getFunctionsVersion());
+		visitor.getValueVisitor().registerFunction("custom", arguments -> value -> "English");
+		long version = visitor.getValueVisitor().getFunctionsVersion();
+		assertNotEquals(0, version);
+		visitor.getValueVisitor().registerFunction("other", arguments -> value -> "English");
+		assertNotEquals(version, visitor.getValueVisitor().getFunctionsVersion());
+		visitor.getValueVisitor().removeFunction("custom");
+		visitor.getValueVisitor().removeFunction("other");
+		assertEquals(0, visitor.getValueVisitor().getFunctionsVersion());
+	}
+	
+	@Test
+	public void testCheapOperandsEvaluatedFirst() throws ParseException {
+		Resource resource = context.resourceResolver().getResource(START_PATH);
+		LongAdder calls = new LongAdder();
+		LogicVisitor visitor = new LogicVisitor();
+		visitor.getValueVisitor().registerFunction("counted", arguments -> value -> {
+			calls.increment();
+			return "English";
+		});
+		Predicate<Resource> predicate = visitor
+				.compile(new FilterParser("counted() == 'English' and name() == 'testpage9'").Input());
+		assertFalse(predicate.test(resource));
+		assertEquals(0, calls.sum());
+		predicate = visitor.compile(new FilterParser("counted() == 'English' or name() == 'en'").Input());
+		assertTrue(predicate.test(resource));
+		assertEquals(0, calls.sum());
+		predicate = visitor.compile(new FilterParser("counted() == 'English' and name() == 'en'").Input());
+		assertTrue(predicate.test(resource));
+		assertEquals(1, calls.sum());
+	}
+	
+	@Test
+	public void testConstantSubexpressionsAreFolded() throws ParseException {
+		ConstantFoldingVisitor folding = new ConstantFoldingVisitor(new LogicVisitor().getValueVisitor());
+		Node folded = new FilterParser("[jcr:content/created] < date('2013-08-08T16:32:59.000+02:00')").Input()
+				.accept(folding, null);
+		assertEquals(NodeType.CONSTANT, folded.rightNode.type);
+		assertEquals(Instant.parse("2013-08-08T14:32:59Z"), folded.rightNode.value);
+		folded = new FilterParser("[jcr:content/created] < date('2013-08-08T16:32:59.000+02:00') and [a] == 'b'")
+				.Input().accept(folding, null);
+		assertEquals(NodeType.CONSTANT, folded.children.get(0).rightNode.type);
+		folded = new FilterParser("'a' == 'b' or [jcr:content/jcr:title] == 'English' and 1 < 2").Input()
+				.accept(folding, null);
+		assertEquals(NodeType.COMPARISON, folded.type);
+		assertEquals(NodeType.PROPERTY, folded.leftNode.type);
+		assertEquals(20, handle(START_PATH, "'a' == 'a' or [jcr:content/jcr:title] == 'English'").size());
+		assertEquals(0, handle(START_PATH, "'a' == 'b' and [jcr:content/jcr:title] == 'English'").size());
+		assertEquals(4, handle(START_PATH, "'a' == 'b' or [jcr:content/jcr:title] == 'English' and 1 < 2").size());
+	}
+	
+	@Test
+	public void testValueMapAdaptedOncePerEvaluation() throws ParseException {
+		LongAdder adaptations = new LongAdder();
+		Resource resource = new ResourceWrapper(context.resourceResolver().getResource(START_PATH + "/testpage1")) {
+			@Override
+			public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+				if (type == ValueMap.class) {
+					adaptations.increment();
+				}
+				return super.adaptTo(type);
+			}
+		};
+		Predicate<Resource> predicate = ResourceLocator.startFrom(resource)
+				.parse("[jcr:primaryType] == 'app:Page' and [sling:resourceType] != 'folder' and [jcr:primaryType] != 'nt:unstructured'");
+		assertTrue(predicate.test(resource));
+		assertEquals(1, adaptations.sum());
+	}
+	
+	@Test
+	public void testProjectionOfReadProperties() throws ParseException {
+		Resource resource = context.resourceResolver().getResource(START_PATH);
+		CompiledQuery compiled = (CompiledQuery) ResourceLocator.startFrom(resource).parse(
+				"[a] == 'x' and [b] > 3 and ([a] like 'y' or [c] contains 'z') and [b] == 1 and [d] < date()");
+		Projection projection = compiled.getProjection().get();
+		assertEquals(Arrays.asList("a", "b", "c", "d"), projection.getNames());
+		assertFalse(projection.isSingleRead());
+		compiled = (CompiledQuery) ResourceLocator.startFrom(resource).parse("[a] == 'x' and name() == 'y'");
+		assertTrue(compiled.getProjection().get().isSingleRead());
+		String query = "[jcr:content/jcr:title] == 'English' and [jcr:content/jcr:title] != 'Mongolian'";
+		assertEquals(4, handle(START_PATH, query).size());
+	}
+	
+	@Test
+	public void testNestedPropertiesResolveChildOnce() throws ParseException {
+		Map<String, Integer> resolved = new HashMap<>();
+		Resource resource = new ResourceWrapper(context.resourceResolver().getResource(START_PATH + "/testpage1")) {
+			@Override
+			public Resource getChild(String relPath) {
+				resolved.merge(relPath, 1, Integer::sum);
+				return super.getChild(relPath);
+			}
+		};
+		Predicate<Resource> predicate = ResourceLocator.startFrom(resource).parse(
+				"[jcr:content/jcr:title] == 'English' and [jcr:content/sling:resourceType] like 'sample/.*'"
+						+ " and [missing/title] != 'English' and [missing/name] != 'testpage1'");
+		assertTrue(predicate.test(resource));
+		assertEquals(1, resolved.get("jcr:content").intValue());
+		assertEquals(1, resolved.get("missing").intValue());
+		assertEquals(2, resolved.size());
+	}
+	
+	@Test
+	public void testContextOfThreadIsReused() throws ParseException {
+		Resource english = context.resourceResolver().getResource(START_PATH + "/testpage1");
+		Resource mongolian = context.resourceResolver().getResource(START_PATH + "/testpage4");
+		Predicate<Resource> predicate = ResourceLocator.startFrom(english)
+				.parse("[jcr:primaryType] == 'app:Page' and [jcr:content/jcr:title] == 'English'");
+		assertTrue(predicate.test(english));
+		assertFalse(predicate.test(mongolian));
+		assertTrue(predicate.test(english));
+
+		EvaluationContext first = EvaluationContext.acquire(english);
+		EvaluationContext second = EvaluationContext.acquire(mongolian);
+		assertNotSame(first, second);
+		assertEquals(english.getPath(), first.getPath());
+		assertEquals(mongolian.getPath(), second.getPath());
+		second.release();
+		first.release();
+		EvaluationContext next = EvaluationContext.acquire(mongolian);
+		assertSame(first, next);
+		assertEquals(mongolian.getPath(), next.getPath());
+		next.release();
+	}
+	
+	@Test
+	public void testNestedPropertiesAreReadWhenCompared() throws ParseException {
+		Map<String, Integer> resolved = new HashMap<>();
+		Resource resource = new ResourceWrapper(context.resourceResolver().getResource(START_PATH + "/testpage1")) {
+			@Override
+			public Resource getChild(String relPath) {
+				resolved.merge(relPath, 1, Integer::sum);
+				return super.getChild(relPath);
+			}
+		};
+		Predicate<Resource> predicate = ResourceLocator.startFrom(resource)
+				.parse("[jcr:primaryType] == 'app:PageContent' and [jcr:content/jcr:title] == 'English'");
+		assertFalse(predicate.test(resource));
+		assertTrue(resolved.isEmpty());
+		predicate = ResourceLocator.startFrom(resource)
+				.parse("[jcr:primaryType] == 'app:Page' and [jcr:content/jcr:title] == 'English'");
+		assertTrue(predicate.test(resource));
+		assertEquals(1, resolved.get("jcr:content").intValue());
+	}
+	
 	private List<Resource> handle(String path, String filter) throws ParseException {
 		Resource resource = context.resourceResolver().getResource(path);
 		return ResourceLocator.startFrom(resource).locateResources(filter);
@@ -16,12 +16,15 @@ package com.sas.sling.resourcelocator;
 import static com.sas.sling.resource.ChildResourcePredicates.aChildResource;
 import static com.sas.sling.resource.PropertyPredicates.property;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
@@ -30,6 +33,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import com.sas.sling.resource.ResourceLocator;
+import com.sas.sling.resource.parser.EvaluationContext;
 
 public class ResourceLocatorTest {
 
@@ -96,5 +100,81 @@ public class ResourceLocatorTest {
 		assertEquals(2, found.size());
 	}
 	
+	@Test
+	public void testParallelStreamMatchesSequential() {
+		Resource resource = context.resourceResolver().getResource("/content/sample/en");
+		List<String> sequential = ResourceLocator.startFrom(resource).stream().map(Resource::getPath)
+				.collect(Collectors.toList());
+		List<String> parallel = ResourceLocator.startFrom(resource).ordered(true).stream().parallel()
+				.map(Resource::getPath).collect(Collectors.toList());
+		assertEquals(sequential, parallel);
+		assertEquals(sequential.size(), ResourceLocator.startFrom(resource).stream().parallel().count());
+	}
+	
+	@Test
+	public void testResumeAfterContinuesPaging() {
+		Resource resource = context.resourceResolver().getResource("/content/sample/en");
+		List<String> all = ResourceLocator.startFrom(resource).stream().map(Resource::getPath)
+				.collect(Collectors.toList());
+		List<String> paged = new ArrayList<>();
+		String continuation = null;
+		List<Resource> page;
+		do {
+			page = ResourceLocator.startFrom(resource).resumeAfter(continuation).limit(3)
+					.locateResources(item -> true);
+			page.forEach(item -> paged.add(item.getPath()));
+			if (!page.isEmpty()) {
+				continuation = page.get(page.size() - 1).getPath();
+			}
+		} while (page.size() == 3);
+		assertEquals(all, paged);
+	}
+
+	@Test
+	public void testLimitAndRangeCountMatches() {
+		Resource resource = context.resourceResolver().getResource("/content/sample/en");
+		List<String> pages = ResourceLocator.startFrom(resource)
+				.locateResources(item -> item.getName().startsWith("testpage")).stream().map(Resource::getName)
+				.collect(Collectors.toList());
+		List<String> limited = ResourceLocator.startFrom(resource).limit(2)
+				.locateResources(item -> item.getName().startsWith("testpage")).stream().map(Resource::getName)
+				.collect(Collectors.toList());
+		List<String> ranged = ResourceLocator.startFrom(resource).range(1, 2)
+				.locateResources(item -> item.getName().startsWith("testpage")).stream().map(Resource::getName)
+				.collect(Collectors.toList());
+		assertEquals(pages.subList(0, 2), limited);
+		assertEquals(pages.subList(1, 3), ranged);
+	}
+
+	@Test
+	public void testChildrenInNaturalOrder() {
+		Resource resource = context.resourceResolver().getResource("/content/sample/en");
+		List<String> children = new ArrayList<>();
+		resource.listChildren().forEachRemaining(child -> children.add(child.getPath()));
+		List<String> found = ResourceLocator.startFrom(resource).stream()
+				.filter(item -> resource.getPath().equals(item.getParent().getPath())).map(Resource::getPath)
+				.collect(Collectors.toList());
+		assertEquals(children, found);
+		assertEquals(resource.getPath(), ResourceLocator.startFrom(resource).stream().findFirst().get().getPath());
+	}
+
+	@Test
+	public void testCallbackReceivesLocatedResources() {
+		Resource resource = context.resourceResolver().getResource("/content/sample/en");
+		List<Resource> received = new ArrayList<>();
+		List<Resource> found = ResourceLocator.startFrom(resource).usingCallback(received::add)
+				.locateResources(item -> item.getName().startsWith("testpage"));
+		assertEquals(4, received.size());
+		assertEquals(found, received);
+	}
+
+	@Test
+	public void testPredicatesReceiveTraversedResources() {
+		Resource resource = context.resourceResolver().getResource("/content/sample/en");
+		List<Resource> tested = new ArrayList<>();
+		ResourceLocator.startFrom(resource).locateResources(item -> tested.add(item));
+		assertEquals(ResourceLocator.startFrom(resource).stream().count(), tested.size());
+		assertFalse(tested.stream().anyMatch(item -> item instanceof EvaluationContext));
+	}
 	
 }
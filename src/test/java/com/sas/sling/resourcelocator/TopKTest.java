@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sas.sling.resource.ResourceLocator;
+
+public class TopKTest {
+
+	private static final String PAGES = "[jcr:primaryType] == 'app:Page'";
+
+	private static final Comparator<Resource> BY_CREATED = Comparator
+			.comparing(resource -> resource.getChild("jcr:content").getValueMap().get("created", Calendar.class));
+
+	@Rule
+	public final SlingContext context = new SlingContext();
+
+	private Resource root;
+
+	@Before
+	public void setUp() {
+		context.load().json("/data.json", "/content/sample/en");
+		root = context.resourceResolver().getResource("/content/sample/en");
+	}
+
+	@Test
+	public void testComparator() throws Exception {
+		for (int k : new int[] { 0, 1, 3, 1000 }) {
+			assertEquals(expected(PAGES, k, BY_CREATED), paths(ResourceLocator.startFrom(root).topK(PAGES, k, BY_CREATED)));
+		}
+	}
+
+	@Test
+	public void testProperty() throws Exception {
+		List<Resource> found = ResourceLocator.startFrom(root).topK(PAGES, 3, "jcr:content/created");
+		assertEquals(expected(PAGES, 3, BY_CREATED), paths(found));
+		// resources without the property are left out
+		Comparator<Resource> byViews = Comparator.comparing(resource -> resource.getValueMap().get("views", Long.class));
+		assertEquals(paths(ResourceLocator.startFrom(root).locateResources("[views] >= 0").stream()
+				.sorted(byViews.reversed()).collect(Collectors.toList())),
+				paths(ResourceLocator.startFrom(root).topK("name() like '.*'", 1000, "views")));
+	}
+
+	@Test
+	public void testFractionalProperty() throws Exception {
+		context.create().resource("/content/sample/en/rated/low", "rating", 1.25);
+		context.create().resource("/content/sample/en/rated/high", "rating", 1.75);
+		context.create().resource("/content/sample/en/rated/highest", "rating",
+				new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE));
+		context.create().resource("/content/sample/en/rated/lowest", "rating", -0.5);
+		List<Resource> found = ResourceLocator.startFrom(root).topK("[rating] is not null", 3, "rating");
+		assertEquals(Arrays.asList("/content/sample/en/rated/highest", "/content/sample/en/rated/high",
+				"/content/sample/en/rated/low"), paths(found));
+	}
+
+	@Test
+	public void testEqualKeysKeepTraversalOrder() throws Exception {
+		Comparator<Resource> byDepth = Comparator.comparing(resource -> resource.getPath().split("/").length % 3);
+		List<Resource> found = ResourceLocator.startFrom(root).topK(resource -> true, 10,
+				resource -> resource.getPath().split("/").length % 3);
+		assertEquals(expected("name() like '.*'", 10, byDepth), paths(found));
+		assertEquals(paths(found), paths(ResourceLocator.startFrom(root).topK(10, byDepth)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegative() {
+		ResourceLocator.startFrom(root).topK(-1, BY_CREATED);
+	}
+
+	private List<String> expected(String condition, int k, Comparator<Resource> comparator) throws Exception {
+		List<Resource> all = ResourceLocator.startFrom(root).locateResources(condition);
+		assertTrue(all.size() > 3);
+		// stable, so equal resources keep the order of the traversal
+		return paths(all.stream().sorted(comparator.reversed()).limit(k).collect(Collectors.toList()));
+	}
+
+	// resources of the mock resolver are compared by identity
+	private static List<String> paths(List<Resource> resources) {
+		return resources.stream().map(Resource::getPath).collect(Collectors.toList());
+	}
+
+}
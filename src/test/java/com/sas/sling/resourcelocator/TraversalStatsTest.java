@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sas.sling.resource.ResourceLocator;
+import com.sas.sling.resource.TraversalStats;
+
+public class TraversalStatsTest {
+
+	@Rule
+	public final SlingContext context = new SlingContext();
+
+	private Resource root;
+
+	@Before
+	public void setUp() {
+		context.load().json("/data.json", "/content/sample/en");
+		root = context.resourceResolver().getResource("/content/sample/en");
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+		TraversalStats stats = new TraversalStats();
+		long found = ResourceLocator.startFrom(root).collectStats(stats).stream("[published] == true").count();
+		assertEquals(1, found);
+		assertEquals(20, stats.getVisitedCount());
+		assertEquals(20, stats.getTestedCount());
+		assertEquals(0, stats.getPrunedCount());
+		assertEquals(20, stats.getListingCount());
+		assertEquals(found, stats.getMatchedCount());
+		assertFalse(stats.isTimed());
+		assertEquals(0, stats.getConditionNanos());
+	}
+
+	@Test
+	public void testPrunedResources() throws Exception {
+		TraversalStats stats = TraversalStats.withTimers();
+		long found = ResourceLocator.startFrom(root).collectStats(stats)
+				.traversalControl(resource -> !resource.getName().equals("jcr:content"))
+				.stream("[published] == true").count();
+		assertEquals(0, found);
+		assertEquals(10, stats.getVisitedCount());
+		assertEquals(5, stats.getTestedCount());
+		assertEquals(5, stats.getPrunedCount());
+		assertEquals(found, stats.getMatchedCount());
+		assertTrue(stats.getConditionNanos() > 0);
+		assertTrue(stats.getTraversalControlNanos() > 0);
+	}
+
+	@Test
+	public void testParallelStreamAddsUp() throws Exception {
+		TraversalStats sequential = new TraversalStats();
+		TraversalStats parallel = new TraversalStats();
+		String filter = "[jcr:primaryType] == 'nt:unstructured'";
+		ResourceLocator.startFrom(root).collectStats(sequential).stream(filter).count();
+		ResourceLocator.startFrom(root).collectStats(parallel).stream(filter).parallel().count();
+		assertEquals(sequential.toString(), parallel.toString());
+	}
+
+}
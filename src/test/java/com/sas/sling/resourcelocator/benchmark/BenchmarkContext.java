@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.context.SlingContextImpl;
+
+/**
+ * The context of the unit tests, which is set up and torn down by the
+ * benchmark states instead of a JUnit rule
+ */
+final class BenchmarkContext extends SlingContextImpl {
+
+	BenchmarkContext(ResourceResolverType type) {
+		setResourceResolverType(type);
+		setUp();
+	}
+
+	void close() {
+		tearDown();
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sas.sling.resource.parser.FilterParser;
+import com.sas.sling.resource.parser.node.Node;
+import com.sas.sling.resource.parser.visitor.LogicVisitor;
+
+/**
+ * Compiles the parsed statements of the {@link Filters#CORPUS}, bypassing the
+ * query cache
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+
+	private final LogicVisitor visitor = new LogicVisitor();
+
+	private Node[] statements;
+
+	@Setup
+	public void setUp() throws Exception {
+		statements = new Node[Filters.CORPUS.length];
+		for (int i = 0; i < statements.length; ++i) {
+			statements[i] = new FilterParser(Filters.CORPUS[i]).Input();
+		}
+	}
+
+	@Benchmark
+	public void compile(Blackhole blackhole) {
+		for (Node statement : statements) {
+			blackhole.consume(visitor.compile(statement));
+		}
+	}
+
+}
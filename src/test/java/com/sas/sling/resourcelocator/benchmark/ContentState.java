@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.sas.sling.resourcelocator.ContentGenerator;
+
+/**
+ * Synthetic content tree, generated once per trial. The tree is kept in memory,
+ * or created through the context of the unit tests for one of its resource
+ * resolver types.
+ */
+@State(Scope.Benchmark)
+public class ContentState {
+
+	static final String ROOT = "/content/benchmark";
+
+	static final String MEMORY = "MEMORY";
+
+	// the JCR based resolver types need a later Sling API than the one the
+	// bundle is built against, they can be selected with -p store=JCR_MOCK once
+	// it is on the test classpath
+	@Param({ MEMORY, "RESOURCERESOLVER_MOCK" })
+	public String store;
+
+	@Param({ "42" })
+	public long seed;
+
+	@Param({ "3" })
+	public int depth;
+
+	@Param({ "10" })
+	public int fanOut;
+
+	@Param({ "0" })
+	public int largeFolder;
+
+	private BenchmarkContext context;
+
+	private Resource root;
+
+	private Resource page;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		ContentGenerator generator = new ContentGenerator(seed).depth(depth).fanOut(fanOut).largeFolder(largeFolder)
+				.resourceTypes("benchmark/page", "benchmark/page", "benchmark/folder");
+		if (MEMORY.equals(store)) {
+			root = generator.generate(ROOT);
+		} else {
+			context = new BenchmarkContext(ResourceResolverType.valueOf(store));
+			generator.create(context.resourceResolver(), context.create().resource(ROOT));
+			// resolved again, so that the children created since are visible
+			root = context.resourceResolver().getResource(ROOT);
+		}
+		page = root;
+		for (int level = 0; level < depth; ++level) {
+			page = page.getChild("page-0");
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (context != null) {
+			context.close();
+		}
+	}
+
+	Resource getRoot() {
+		return root;
+	}
+
+	/**
+	 * @return the page on the deepest level which is generated first
+	 */
+	Resource getPage() {
+		return page;
+	}
+
+}
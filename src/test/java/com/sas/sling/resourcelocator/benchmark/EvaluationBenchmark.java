@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sas.sling.resource.ResourceLocator;
+
+/**
+ * Evaluates a compiled condition against a single resource. Run with
+ * '-prof gc', the common comparisons are expected to report no allocation per
+ * operation.
+ * 
+ * The resource of {@link #evaluate()} holds its properties in memory, so that
+ * only the allocations of the condition are measured and not those of a
+ * resource provider. {@link #evaluateStored(ContentState)} uses a page of the
+ * generated tree instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+	@Param({ "[jcr:title] == 'English'", "[count] == 10", "[count] > 5", "[jcr:created] < date('2013-08-08T16:32:59.000+02:00')",
+			"[layout] is null", "[published] == true", "[count] > 5 and [jcr:title] == 'English'",
+			"[jcr:created] < date('2013-08-08T16:32:59.000+02:00') and [count] == 10 and [published] == true" })
+	public String filter;
+
+	private Predicate<Resource> condition;
+
+	private Resource resource;
+
+	@Setup
+	public void setup() throws Exception {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("jcr:title", "English");
+		properties.put("count", 10L);
+		Calendar created = new GregorianCalendar();
+		created.setTimeInMillis(1375972379000L);
+		properties.put("jcr:created", created);
+		properties.put("published", Boolean.TRUE);
+		resource = new PropertiesResource("/content/sample/en", new ValueMapDecorator(properties));
+		condition = ResourceLocator.startFrom(resource).parse(filter);
+	}
+
+	@Benchmark
+	public boolean evaluate() {
+		return condition.test(resource);
+	}
+
+	@Benchmark
+	public boolean evaluateStored(ContentState content) {
+		return condition.test(content.getPage());
+	}
+
+	static final class PropertiesResource extends AbstractResource {
+
+		private final String path;
+
+		private final ValueMap properties;
+
+		private final ResourceMetadata metadata = new ResourceMetadata();
+
+		PropertiesResource(String path, ValueMap properties) {
+			this.path = path;
+			this.properties = properties;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <AdapterType> AdapterType adaptTo(Class<AdapterType> type) {
+			if (type == ValueMap.class) {
+				return (AdapterType) properties;
+			}
+			return super.adaptTo(type);
+		}
+
+		@Override
+		public String getPath() {
+			return path;
+		}
+
+		@Override
+		public String getResourceType() {
+			return "nt:unstructured";
+		}
+
+		@Override
+		public String getResourceSuperType() {
+			return null;
+		}
+
+		@Override
+		public ResourceMetadata getResourceMetadata() {
+			return metadata;
+		}
+
+		@Override
+		public ResourceResolver getResourceResolver() {
+			return null;
+		}
+	}
+
+}
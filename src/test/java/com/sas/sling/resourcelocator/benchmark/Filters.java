@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+/**
+ * Statements of the filter language which select from the generated tree,
+ * written the way filters are written in applications
+ */
+final class Filters {
+
+	static final String[] CORPUS = {
+			"[jcr:content/jcr:title] == 'English'",
+			"[jcr:content/jcr:title] == 'English' or [jcr:content/jcr:title] == 'Mongolian'",
+			"[count] > 100 and [count] <= 500",
+			"[jcr:content/created] < date('2013-08-08T16:32:59.000+02:00')",
+			"[jcr:content/created] > date('2013-08-06','yyyy-MM-dd') and [published] == true",
+			"name() like 'page-1.*' and [sling:resourceType] == 'benchmark/page'",
+			"path() like '/content/benchmark/page-2/.*'",
+			"[tags] contains 'red'",
+			"[tags] contains any ('red', 'blue')",
+			"[sling:resourceType] in ('benchmark/page', 'benchmark/folder')",
+			"[layout] is null",
+			"[published] == true and ([count] < 10 or [jcr:content/jcr:title] like 'Eng.*')",
+	};
+
+	private Filters() {
+	}
+
+}
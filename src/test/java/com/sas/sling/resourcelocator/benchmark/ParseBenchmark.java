@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sas.sling.resource.parser.FilterParser;
+import com.sas.sling.resource.parser.ParseException;
+import com.sas.sling.resource.parser.Parser;
+
+/**
+ * Parses every statement of the {@link Filters#CORPUS} with the generated
+ * parser and with the parser used by the locator
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	@Benchmark
+	public void generatedParser(Blackhole blackhole) throws ParseException {
+		for (String filter : Filters.CORPUS) {
+			blackhole.consume(new Parser(new StringReader(filter)).Input());
+		}
+	}
+
+	@Benchmark
+	public void filterParser(Blackhole blackhole) throws ParseException {
+		for (String filter : Filters.CORPUS) {
+			blackhole.consume(new FilterParser(filter).Input());
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sas.sling.resourcelocator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sas.sling.resource.ResourceLocator;
+
+/**
+ * Streams every match of a statement below the root of the generated tree
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBenchmark {
+
+	@Param({ "[jcr:content/jcr:title] == 'English'", "[count] > 100 and [count] <= 500",
+			"path() like '/content/benchmark/page-2/.*'",
+			"[published] == true and ([count] < 10 or [jcr:content/jcr:title] like 'Eng.*')" })
+	public String filter;
+
+	private Predicate<Resource> condition;
+
+	@Setup
+	public void setUp(ContentState content) throws Exception {
+		condition = ResourceLocator.startFrom(content.getRoot()).parse(filter);
+	}
+
+	@Benchmark
+	public long stream(ContentState content) {
+		return ResourceLocator.startFrom(content.getRoot()).stream(condition).count();
+	}
+
+}